@@ -0,0 +1,228 @@
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Benchmarks the hot operations of Graph across graph sizes and degree distributions.
+ * For every operation prints throughput, latency percentiles and bytes allocated per operation.
+ * <p>
+ * Usage: java Benchmarks [minExponent] [maxExponent] [seed], graph sizes are 2^minExponent..2^maxExponent nodes
+ * (default 2^6..2^22). Run with a heap large enough for the largest graph, e.g. -Xmx4g.
+ * <p>
+ * Usage: java Benchmarks arity [minExponent] [maxExponent] [seed], compares heap arities 2, 4 and 8 on the same
+ * workloads (default 2^20..2^22 nodes), where addEdge and deleteNode are dominated by heap key changes.
+ */
+public class Benchmarks {
+    public enum Distribution {
+        UNIFORM, POWER_LAW, STAR
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean ?
+                    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean() : null;
+
+    private static volatile long blackhole;
+
+    public static void main(String[] args) {
+        boolean arity = args.length > 0 && args[0].equals("arity");
+        int offset = arity ? 1 : 0;
+
+        int minExponent = args.length > offset ? Integer.parseInt(args[offset]) : arity ? 20 : 6;
+        int maxExponent = args.length > offset + 1 ? Integer.parseInt(args[offset + 1]) : 22;
+        long seed = args.length > offset + 2 ? Long.parseLong(args[offset + 2]) : 0;
+
+        int[] heapArities = arity ? new int[]{2, 4, 8} : new int[]{4};
+
+        // warm up the JIT on a mid sized graph before measuring
+        for (Distribution distribution : Distribution.values()) {
+            for (int heapArity : heapArities) {
+                Benchmarks.run(distribution, 1 << 14, heapArity, seed, false);
+            }
+        }
+
+        System.out.printf("%-10s %9s %2s %-22s %14s %8s %8s %8s %8s %10s %10s%n",
+                "dist", "n", "d", "operation", "ops/s", "p50 ns", "p90 ns", "p99 ns", "p99.9 ns", "max ns", "bytes/op");
+
+        for (Distribution distribution : Distribution.values()) {
+            for (int i = minExponent; i <= maxExponent; i++) {
+                for (int heapArity : heapArities) {
+                    Benchmarks.run(distribution, 1 << i, heapArity, seed + i, true);
+                }
+            }
+        }
+    }
+
+    public static void run(Distribution distribution, int n, int heapArity, long seed, boolean print) {
+        Random random = new Random(seed);
+
+        Graph.Node[] nodes = new Graph.Node[n];
+
+        for (int i = 0; i < n; i++) {
+            nodes[i] = new Graph.Node(i + 1, 1 + random.nextInt(100));
+        }
+
+        Graph graph = new Graph(nodes, heapArity);
+
+        long[] edges = Benchmarks.generateEdges(distribution, n, random);
+        long[] latencies = new long[Math.max(n, edges.length)];
+        int[] ids = Benchmarks.shuffledIds(n, random);
+
+        long start, bytes, time;
+
+        // addEdge
+        bytes = Benchmarks.allocatedBytes();
+        start = System.nanoTime();
+        for (int i = 0; i < edges.length; i++) {
+            time = System.nanoTime();
+            graph.addEdge((int) (edges[i] >>> 32), (int) edges[i]);
+            latencies[i] = System.nanoTime() - time;
+        }
+        Benchmarks.report(print, distribution, n, heapArity, "addEdge", latencies, edges.length,
+                System.nanoTime() - start, Benchmarks.allocatedBytes() - bytes);
+
+        // getNeighborhoodWeight
+        long sink = 0;
+        bytes = Benchmarks.allocatedBytes();
+        start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            time = System.nanoTime();
+            sink += graph.getNeighborhoodWeight(ids[i]);
+            latencies[i] = System.nanoTime() - time;
+        }
+        Benchmarks.report(print, distribution, n, heapArity, "getNeighborhoodWeight", latencies, n,
+                System.nanoTime() - start, Benchmarks.allocatedBytes() - bytes);
+
+        // maxNeighborhoodWeight
+        bytes = Benchmarks.allocatedBytes();
+        start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            time = System.nanoTime();
+            sink += graph.maxNeighborhoodWeight().getId();
+            latencies[i] = System.nanoTime() - time;
+        }
+        Benchmarks.report(print, distribution, n, heapArity, "maxNeighborhoodWeight", latencies, n,
+                System.nanoTime() - start, Benchmarks.allocatedBytes() - bytes);
+
+        // deleteNode
+        bytes = Benchmarks.allocatedBytes();
+        start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            time = System.nanoTime();
+            graph.deleteNode(ids[i]);
+            latencies[i] = System.nanoTime() - time;
+        }
+        Benchmarks.report(print, distribution, n, heapArity, "deleteNode", latencies, n,
+                System.nanoTime() - start, Benchmarks.allocatedBytes() - bytes);
+
+        // keep the results of the queries alive
+        Benchmarks.blackhole = sink;
+    }
+
+    /**
+     * Returns about n distinct edges between the ids 1..n, each encoded as (id1 << 32) | id2.
+     * Uniform picks both endpoints uniformly, power law picks them with density proportional to 1/sqrt(rank),
+     * and star connects node 1 to every other node.
+     */
+    public static long[] generateEdges(Distribution distribution, int n, Random random) {
+        if (distribution == Distribution.STAR) {
+            long[] edges = new long[n - 1];
+
+            for (int i = 2; i <= n; i++) {
+                edges[i - 2] = (1L << 32) | i;
+            }
+
+            return edges;
+        }
+
+        long[] edges = new long[n];
+        int i, j, tmp;
+
+        for (int k = 0; k < n; k++) {
+            do {
+                i = Benchmarks.randomId(distribution, n, random);
+                j = Benchmarks.randomId(distribution, n, random);
+            } while (i == j);
+
+            if (i > j) {
+                tmp = i;
+                i = j;
+                j = tmp;
+            }
+
+            edges[k] = ((long) i << 32) | j;
+        }
+
+        // drop duplicated edges, then shuffle back into random order
+        Arrays.sort(edges);
+
+        int m = 0;
+        for (int k = 0; k < edges.length; k++) {
+            if (k == 0 || edges[k] != edges[k - 1]) {
+                edges[m++] = edges[k];
+            }
+        }
+
+        edges = Arrays.copyOf(edges, m);
+
+        for (int k = m - 1; k > 0; k--) {
+            int l = random.nextInt(k + 1);
+            long swap = edges[k];
+            edges[k] = edges[l];
+            edges[l] = swap;
+        }
+
+        return edges;
+    }
+
+    private static int randomId(Distribution distribution, int n, Random random) {
+        if (distribution == Distribution.UNIFORM) {
+            return 1 + random.nextInt(n);
+        }
+
+        double u = random.nextDouble();
+        return 1 + (int) (n * u * u);
+    }
+
+    private static int[] shuffledIds(int n, Random random) {
+        int[] ids = new int[n];
+
+        for (int i = 0; i < n; i++) {
+            ids[i] = i + 1;
+        }
+
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1), swap = ids[i];
+            ids[i] = ids[j];
+            ids[j] = swap;
+        }
+
+        return ids;
+    }
+
+    private static long allocatedBytes() {
+        return THREADS == null ? 0 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void report(boolean print, Distribution distribution, int n, int heapArity, String operation,
+                               long[] latencies, int count, long elapsed, long allocated) {
+        if (!print || count == 0) {
+            return;
+        }
+
+        Arrays.sort(latencies, 0, count);
+
+        System.out.printf("%-10s %9d %2d %-22s %14.0f %8d %8d %8d %8d %10d %10.1f%n",
+                distribution, n, heapArity, operation,
+                count / (elapsed / 1e9),
+                Benchmarks.percentile(latencies, count, 0.5),
+                Benchmarks.percentile(latencies, count, 0.9),
+                Benchmarks.percentile(latencies, count, 0.99),
+                Benchmarks.percentile(latencies, count, 0.999),
+                latencies[count - 1],
+                (double) allocated / count);
+    }
+
+    private static long percentile(long[] sortedLatencies, int count, double p) {
+        return sortedLatencies[Math.min(count - 1, (int) (p * count))];
+    }
+}
@@ -0,0 +1,790 @@
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntConsumer;
+
+/**
+ * This class represents a graph that may be used by several threads at once, partitioned into lock stripes by node id.
+ * <p>
+ * Every node belongs to the stripe chosen by a hash of its id, and is stored in the Graph of that stripe together with
+ * the edges to nodes of the same stripe, under the lock of the stripe. An edge between nodes of different stripes is
+ * not stored in either Graph: each stripe keeps a remote edge to the node of the other stripe and adds the weight of
+ * that node to the neighborhood weight of its own node, so the neighborhood weights in every stripe are the same as in
+ * a single graph. A mutation locks the stripes it changes in ascending order, so mutations of different stripes run
+ * in parallel: an edge addition or deletion locks the stripes of its two nodes, and a node deletion or weight update
+ * the stripe of its node and the stripes of its remote neighbors. Every stripe has its own max heap, repaired under
+ * the lock of the stripe, and only heap repairs of the same stripe are serialized.
+ * <p>
+ * Queries do not block: the max neighborhood is merged wait-free from the max neighborhoods published by the stripes,
+ * and other queries read the Graph of a stripe optimistically and only fall back to its read lock if a mutation of the
+ * stripe ran at the same time. Counts are summed over the stripes, so they are not atomic with mutations of several
+ * stripes running at the same time.
+ * <p>
+ * If a Graph throws while applying a mutation, the throwable is rethrown by the mutation, which may or may not have
+ * changed the graph, and the graph may be left inconsistent.
+ */
+public class ConcurrentGraph {
+    private static final int MAX_STRIPES = 64;
+
+    /**
+     * This class represents a stripe: a Graph of the nodes of the stripe, their remote edges, and the lock guarding
+     * both.
+     */
+    private static final class Stripe {
+        private final Graph graph;
+        private final RemoteEdges remoteEdges;
+        private final StampedLock lock;
+
+        /**
+         * Creates a new stripe on given nodes. O(n).
+         *
+         * @param nodes - nodes of stripe.
+         */
+        private Stripe(Graph.Node[] nodes) {
+            this.graph = new Graph(nodes);
+            this.graph.setPublishing(true);
+            this.graph.setEmittingMax(false);
+            this.remoteEdges = new RemoteEdges();
+            this.lock = new StampedLock();
+        }
+    }
+
+    private final Stripe[] stripes;
+    private final long allStripes;
+
+    // subscribed event streams, changed while holding the event lock and all stripe locks; while there are any, every
+    // mutation holds the event lock, so that streams have one writer
+    private final ReentrantLock eventLock;
+    private volatile NeighborhoodEventStream[] eventStreams;
+
+    // max neighborhood last emitted to the streams, guarded by the event lock
+    private Graph.Node eventMaxNode;
+    private long eventMaxWeight;
+
+    /**
+     * Initializes the concurrent graph on a given set of nodes, partitioned across given number of stripes. The created
+     * graph is empty, i.e. it has no edges. O(n).
+     *
+     * @param nodes      - an array of node objects
+     * @param numStripes - number of stripes, at most 64, a few per core.
+     * @throws IllegalArgumentException if numStripes is less than 1 or more than 64.
+     */
+    public ConcurrentGraph(Graph.Node[] nodes, int numStripes) {
+        if (numStripes < 1 || numStripes > MAX_STRIPES) {
+            throw new IllegalArgumentException("number of stripes must be between 1 and " + MAX_STRIPES);
+        }
+
+        int[] counts = new int[numStripes];
+        Graph.Node[][] stripeNodes = new Graph.Node[numStripes][];
+
+        this.stripes = new Stripe[numStripes];
+        this.allStripes = numStripes == MAX_STRIPES ? -1L : (1L << numStripes) - 1;
+        this.eventLock = new ReentrantLock();
+        this.eventStreams = new NeighborhoodEventStream[0];
+        this.eventMaxWeight = -1;
+
+        for (Graph.Node node : nodes) {
+            counts[this.getStripe(node.getId())]++;
+        }
+
+        for (int i = 0; i < numStripes; i++) {
+            stripeNodes[i] = new Graph.Node[counts[i]];
+            counts[i] = 0;
+        }
+
+        for (Graph.Node node : nodes) {
+            int stripe = this.getStripe(node.getId());
+
+            stripeNodes[stripe][counts[stripe]++] = node;
+        }
+
+        for (int i = 0; i < numStripes; i++) {
+            this.stripes[i] = new Stripe(stripeNodes[i]);
+        }
+    }
+
+    /**
+     * Initializes the concurrent graph on a given set of nodes, with 4 stripes per core, so that threads seldom contend
+     * for a stripe, and at most 64. The created graph is empty, i.e. it has no edges. O(n).
+     *
+     * @param nodes - an array of node objects
+     */
+    public ConcurrentGraph(Graph.Node[] nodes) {
+        this(nodes, Math.min(MAX_STRIPES, 4 * Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Initializes an empty concurrent graph, with no nodes and no edges. O(1).
+     */
+    public ConcurrentGraph() {
+        this(new Graph.Node[0]);
+    }
+
+    /**
+     * Returns stripe of node id, by the high bits of a multiplicative hash scaled to the number of stripes. O(1).
+     *
+     * @param nodeId - id of node.
+     * @return index of stripe.
+     */
+    private int getStripe(int nodeId) {
+        return (int) ((((nodeId * 0x9E3779B97F4A7C15L) >>> 32) * this.stripes.length) >>> 32);
+    }
+
+    //LOCKING-----------------------------------------------------------------------------------------------------------
+
+    /**
+     * Acquires the write locks of the stripes of mask in ascending order, and the event lock before them if any
+     * stream is subscribed. O(stripes of mask).
+     *
+     * @param mask - stripes to lock, by bit.
+     */
+    private void lock(long mask) {
+        boolean events = this.eventStreams.length != 0;
+
+        while (true) {
+            if (events) {
+                this.eventLock.lock();
+            }
+
+            this.lockStripes(mask);
+
+            // streams are only subscribed while holding all stripe locks, so they cannot change until unlocked
+            if (events || this.eventStreams.length == 0) {
+                return;
+            }
+
+            this.unlockStripes(mask);
+            events = true;
+        }
+    }
+
+    /**
+     * Acquires the locks of the stripe of the node of the given id and of the stripes of its remote neighbors, see
+     * lock, so that its remote edges cannot change until unlocked. O(d + stripes) for d remote edges - Expected.
+     *
+     * @param stripe - index of stripe of node.
+     * @param nodeId - id of node.
+     * @return stripes locked, by bit.
+     */
+    private long lockNeighborhood(int stripe, int nodeId) {
+        long mask = 1L << stripe, needed;
+        RemoteEdges remoteEdges = this.stripes[stripe].remoteEdges;
+
+        while (true) {
+            this.lock(mask);
+
+            needed = mask;
+
+            for (int edge = remoteEdges.first(nodeId); edge != RemoteEdges.NIL; edge = remoteEdges.getNext(edge)) {
+                needed |= 1L << this.getStripe(remoteEdges.getRemoteId(edge));
+            }
+
+            if (needed == mask) {
+                return mask;
+            }
+
+            // a remote neighbor of a stripe not locked, lock it too in order
+            this.unlock(mask);
+            mask = needed;
+        }
+    }
+
+    /**
+     * Emits the max neighborhood to subscribed streams if the current thread holds the event lock, then releases the
+     * write locks of the stripes of mask and the event lock. O(stripes).
+     *
+     * @param mask - stripes to unlock, by bit.
+     */
+    private void unlock(long mask) {
+        if (!this.eventLock.isHeldByCurrentThread()) {
+            this.unlockStripes(mask);
+
+            return;
+        }
+
+        try {
+            this.emitMax();
+        } finally {
+            this.unlockStripes(mask);
+            this.eventLock.unlock();
+        }
+    }
+
+    /**
+     * Acquires the write locks of the stripes of mask in ascending order. O(stripes of mask).
+     *
+     * @param mask - stripes to lock, by bit.
+     */
+    private void lockStripes(long mask) {
+        for (long bits = mask; bits != 0; bits &= bits - 1) {
+            this.stripes[Long.numberOfTrailingZeros(bits)].lock.writeLock();
+        }
+    }
+
+    /**
+     * Releases the write locks of the stripes of mask. O(stripes of mask).
+     *
+     * @param mask - stripes to unlock, by bit.
+     */
+    private void unlockStripes(long mask) {
+        for (long bits = mask; bits != 0; bits &= bits - 1) {
+            this.stripes[Long.numberOfTrailingZeros(bits)].lock.tryUnlockWrite();
+        }
+    }
+
+    //MUTATIONS---------------------------------------------------------------------------------------------------------
+
+    /**
+     * Adds an edge between the two nodes whose ids are specified, see Graph.addEdge. Locks the stripes of both nodes.
+     * O(log n).
+     *
+     * @param node1_id - the id of the first node.
+     * @param node2_id - the id of the second node.
+     * @return returns 'true' if the function added an edge, otherwise returns 'false'.
+     */
+    public boolean addEdge(int node1_id, int node2_id) {
+        int stripe1 = this.getStripe(node1_id), stripe2 = this.getStripe(node2_id);
+        long mask = (1L << stripe1) | (1L << stripe2);
+
+        this.lock(mask);
+
+        try {
+            if (stripe1 == stripe2) {
+                return this.stripes[stripe1].graph.addEdge(node1_id, node2_id);
+            }
+
+            Stripe first = this.stripes[stripe1], second = this.stripes[stripe2];
+            Graph.Node node1 = first.graph.getNode(node1_id), node2 = second.graph.getNode(node2_id);
+
+            if (node1 == null || node2 == null || first.remoteEdges.find(node1_id, node2_id) != RemoteEdges.NIL) {
+                return false;
+            }
+
+            first.remoteEdges.add(node1_id, node2_id, RemoteEdges.CONFIRMED);
+            second.remoteEdges.add(node2_id, node1_id, RemoteEdges.CONFIRMED);
+            first.graph.addNeighborhoodWeight(node1_id, node2.getWeight());
+            second.graph.addNeighborhoodWeight(node2_id, node1.getWeight());
+
+            return true;
+        } finally {
+            this.unlock(mask);
+        }
+    }
+
+    /**
+     * Adds a node with no edges to the graph, see Graph.addNode. Locks the stripe of the node. O(log n).
+     *
+     * @param node - the node to add.
+     * @return returns 'true' if the function added a node, otherwise returns 'false'.
+     */
+    public boolean addNode(Graph.Node node) {
+        int stripe = this.getStripe(node.getId());
+        long mask = 1L << stripe;
+
+        this.lock(mask);
+
+        try {
+            return this.stripes[stripe].graph.addNode(node);
+        } finally {
+            this.unlock(mask);
+        }
+    }
+
+    /**
+     * Deletes the node of the given id from the graph, if it exists, see Graph.deleteNode. Locks the stripe of the
+     * node and the stripes of its remote neighbors. O((d+1) log n).
+     *
+     * @param node_id - the id of the node to delete.
+     * @return returns 'true' if the function deleted a node, otherwise returns 'false'
+     */
+    public boolean deleteNode(int node_id) {
+        int stripe = this.getStripe(node_id), remoteId;
+        long mask = this.lockNeighborhood(stripe, node_id);
+
+        try {
+            Stripe own = this.stripes[stripe], other;
+            Graph.Node node = own.graph.getNode(node_id);
+
+            if (node == null) {
+                return false;
+            }
+
+            for (int edge; (edge = own.remoteEdges.first(node_id)) != RemoteEdges.NIL; ) {
+                remoteId = own.remoteEdges.getRemoteId(edge);
+                other = this.stripes[this.getStripe(remoteId)];
+
+                other.remoteEdges.remove(other.remoteEdges.find(remoteId, node_id));
+                other.graph.addNeighborhoodWeight(remoteId, -node.getWeight());
+                own.remoteEdges.remove(edge);
+            }
+
+            return own.graph.deleteNode(node_id);
+        } finally {
+            this.unlock(mask);
+        }
+    }
+
+    /**
+     * Deletes the edge between the two nodes whose ids are specified, if it exists, see Graph.deleteEdge. Locks the
+     * stripes of both nodes. O(log n).
+     *
+     * @param node1_id - the id of the first node.
+     * @param node2_id - the id of the second node.
+     * @return returns 'true' if the function deleted an edge, otherwise returns 'false'.
+     */
+    public boolean deleteEdge(int node1_id, int node2_id) {
+        int stripe1 = this.getStripe(node1_id), stripe2 = this.getStripe(node2_id);
+        long mask = (1L << stripe1) | (1L << stripe2);
+
+        this.lock(mask);
+
+        try {
+            if (stripe1 == stripe2) {
+                return this.stripes[stripe1].graph.deleteEdge(node1_id, node2_id);
+            }
+
+            Stripe first = this.stripes[stripe1], second = this.stripes[stripe2];
+            int edge = first.remoteEdges.find(node1_id, node2_id);
+
+            if (edge == RemoteEdges.NIL) {
+                return false;
+            }
+
+            first.remoteEdges.remove(edge);
+            second.remoteEdges.remove(second.remoteEdges.find(node2_id, node1_id));
+            first.graph.addNeighborhoodWeight(node1_id, -second.graph.getNode(node2_id).getWeight());
+            second.graph.addNeighborhoodWeight(node2_id, -first.graph.getNode(node1_id).getWeight());
+
+            return true;
+        } finally {
+            this.unlock(mask);
+        }
+    }
+
+    /**
+     * Changes the weight of the node of the given id, if it exists, see Graph.updateNodeWeight. Locks the stripe of
+     * the node and the stripes of its remote neighbors. O((d+1) log n).
+     *
+     * @param node_id - the id of the node to update.
+     * @param weight  - the new weight of the node.
+     * @return returns 'true' if the function updated a node, otherwise returns 'false'.
+     */
+    public boolean updateNodeWeight(int node_id, int weight) {
+        int stripe = this.getStripe(node_id), remoteId;
+        long mask = this.lockNeighborhood(stripe, node_id);
+
+        try {
+            Stripe own = this.stripes[stripe];
+            Graph.Node node = own.graph.getNode(node_id);
+
+            if (node == null) {
+                return false;
+            }
+
+            long delta = (long) weight - node.getWeight();
+
+            own.graph.updateNodeWeight(node_id, weight);
+
+            if (delta != 0) {
+                for (int edge = own.remoteEdges.first(node_id); edge != RemoteEdges.NIL;
+                     edge = own.remoteEdges.getNext(edge)) {
+                    remoteId = own.remoteEdges.getRemoteId(edge);
+
+                    this.stripes[this.getStripe(remoteId)].graph.addNeighborhoodWeight(remoteId, delta);
+                }
+            }
+
+            return true;
+        } finally {
+            this.unlock(mask);
+        }
+    }
+
+    //EVENTS------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Subscribes a new event stream of given threshold and capacity, see Graph.subscribe. Threshold events are emitted
+     * by the stripes, and MAX_CHANGED events for the max of all stripes. While any stream is subscribed, mutations are
+     * applied one at a time, so that the streams have one writer, and may be drained by one consumer thread.
+     * O(n + capacity).
+     *
+     * @param threshold - threshold of neighborhood weights.
+     * @param capacity  - maximum number of unread events, rounded up to a power of two.
+     * @return the subscribed event stream.
+     * @throws IllegalArgumentException if capacity is less than 1 or more than 2^30.
+     */
+    public NeighborhoodEventStream subscribe(long threshold, int capacity) {
+        NeighborhoodEventStream stream = new NeighborhoodEventStream(threshold, capacity);
+
+        this.eventLock.lock();
+
+        try {
+            this.lockStripes(this.allStripes);
+
+            try {
+                for (Stripe stripe : this.stripes) {
+                    stripe.graph.attach(stream);
+                }
+
+                // current max, which may have changed unemitted while no stream was subscribed
+                Graph.MaxNeighborhood max = this.getMaxNeighborhood();
+
+                this.eventMaxNode = max == null ? null : max.getNode();
+                this.eventMaxWeight = max == null ? -1 : max.getWeight();
+
+                stream.emitMax(this.eventMaxNode == null ? 0 : this.eventMaxNode.getId(), this.eventMaxWeight);
+
+                NeighborhoodEventStream[] eventStreams = Arrays.copyOf(this.eventStreams, this.eventStreams.length + 1);
+
+                eventStreams[eventStreams.length - 1] = stream;
+                this.eventStreams = eventStreams;
+            } finally {
+                this.unlockStripes(this.allStripes);
+            }
+        } finally {
+            this.eventLock.unlock();
+        }
+
+        return stream;
+    }
+
+    /**
+     * Unsubscribes an event stream, if subscribed, see Graph.unsubscribe. Once no stream is subscribed, mutations of
+     * different stripes run in parallel again.
+     *
+     * @param stream - event stream.
+     * @return 'true' if the stream was subscribed, otherwise 'false'.
+     */
+    public boolean unsubscribe(NeighborhoodEventStream stream) {
+        this.eventLock.lock();
+
+        try {
+            NeighborhoodEventStream[] eventStreams = this.eventStreams;
+
+            for (int i = 0; i < eventStreams.length; i++) {
+                if (eventStreams[i] == stream) {
+                    NeighborhoodEventStream[] remaining = Arrays.copyOf(eventStreams, eventStreams.length - 1);
+
+                    System.arraycopy(eventStreams, i + 1, remaining, i, remaining.length - i);
+
+                    this.lockStripes(this.allStripes);
+
+                    try {
+                        for (Stripe stripe : this.stripes) {
+                            stripe.graph.unsubscribe(stream);
+                        }
+
+                        this.eventStreams = remaining;
+                    } finally {
+                        this.unlockStripes(this.allStripes);
+                    }
+
+                    return true;
+                }
+            }
+
+            return false;
+        } finally {
+            this.eventLock.unlock();
+        }
+    }
+
+    /**
+     * Emits a MAX_CHANGED event to all subscribed streams if the max neighborhood of all stripes changed since last
+     * emitted. Must hold the event lock. O(stripes + streams).
+     */
+    private void emitMax() {
+        Graph.MaxNeighborhood max = this.getMaxNeighborhood();
+        Graph.Node node = max == null ? null : max.getNode();
+        long weight = max == null ? -1 : max.getWeight();
+
+        if (node != this.eventMaxNode || weight != this.eventMaxWeight) {
+            this.eventMaxNode = node;
+            this.eventMaxWeight = weight;
+
+            for (NeighborhoodEventStream stream : this.eventStreams) {
+                stream.emitMax(node == null ? 0 : node.getId(), weight);
+            }
+        } else {
+            // a max held aside by a full stream is written once the consumer made room
+            for (NeighborhoodEventStream stream : this.eventStreams) {
+                stream.flushMax();
+            }
+        }
+    }
+
+    //QUERIES-----------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the node with the maximum neighborhood weight, or null if graph is empty,
+     * see Graph.maxNeighborhoodWeight. Wait-free, O(stripes).
+     *
+     * @return the node with the maximum neighborhood weight, or null.
+     */
+    public Graph.Node maxNeighborhoodWeight() {
+        Graph.MaxNeighborhood maxNeighborhood = this.getMaxNeighborhood();
+
+        return maxNeighborhood == null ? null : maxNeighborhood.getNode();
+    }
+
+    /**
+     * Returns the node with the maximum neighborhood weight together with that weight, merged from the max
+     * neighborhoods published by the stripes after their last applied mutations, or null if all stripes were empty
+     * then. Wait-free, O(stripes).
+     *
+     * @return the max neighborhood, or null.
+     */
+    public Graph.MaxNeighborhood getMaxNeighborhood() {
+        Graph.MaxNeighborhood max = null, top;
+
+        for (Stripe stripe : this.stripes) {
+            top = stripe.graph.getPublishedMaxNeighborhood();
+
+            if (top != null && (max == null || top.getWeight() > max.getWeight())) {
+                max = top;
+            }
+        }
+
+        return max;
+    }
+
+    /**
+     * Returns the neighborhood weight of the node of the given id, or -1 if no such node exists,
+     * see Graph.getNeighborhoodWeight.
+     *
+     * @param node_id - an id of a node.
+     * @return the neighborhood weight of the node, or -1.
+     */
+    public int getNeighborhoodWeight(int node_id) {
+        Stripe stripe = this.stripes[this.getStripe(node_id)];
+        long stamp = stripe.lock.tryOptimisticRead();
+
+        if (stamp != 0) {
+            try {
+                int weight = stripe.graph.getNeighborhoodWeight(node_id);
+
+                if (stripe.lock.validate(stamp)) {
+                    return weight;
+                }
+            } catch (RuntimeException e) {
+                // read an inconsistent state while a mutation of the stripe ran, retry under read lock
+            }
+        }
+
+        stamp = stripe.lock.readLock();
+
+        try {
+            return stripe.graph.getNeighborhoodWeight(node_id);
+        } finally {
+            stripe.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the neighborhood weight of the node of the given id as a long, or -1 if no such node exists,
+     * see Graph.getNeighborhoodWeightLong.
+     *
+     * @param node_id - an id of a node.
+     * @return the neighborhood weight of the node, or -1.
+     */
+    public long getNeighborhoodWeightLong(int node_id) {
+        Stripe stripe = this.stripes[this.getStripe(node_id)];
+        long stamp = stripe.lock.tryOptimisticRead();
+
+        if (stamp != 0) {
+            try {
+                long weight = stripe.graph.getNeighborhoodWeightLong(node_id);
+
+                if (stripe.lock.validate(stamp)) {
+                    return weight;
+                }
+            } catch (RuntimeException e) {
+                // read an inconsistent state while a mutation of the stripe ran, retry under read lock
+            }
+        }
+
+        stamp = stripe.lock.readLock();
+
+        try {
+            return stripe.graph.getNeighborhoodWeightLong(node_id);
+        } finally {
+            stripe.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns whether there is an edge between the two nodes whose ids are specified, see Graph.hasEdge. An edge
+     * between nodes of different stripes is looked up under the read lock of the stripe of the first node.
+     *
+     * @param node1_id - the id of the first node.
+     * @param node2_id - the id of the second node.
+     * @return 'true' if there is an edge between the nodes, otherwise 'false'.
+     */
+    public boolean hasEdge(int node1_id, int node2_id) {
+        Stripe stripe = this.stripes[this.getStripe(node1_id)];
+        long stamp;
+
+        if (this.getStripe(node2_id) != this.getStripe(node1_id)) {
+            stamp = stripe.lock.readLock();
+
+            try {
+                return stripe.remoteEdges.find(node1_id, node2_id) != RemoteEdges.NIL;
+            } finally {
+                stripe.lock.unlockRead(stamp);
+            }
+        }
+
+        if ((stamp = stripe.lock.tryOptimisticRead()) != 0) {
+            try {
+                boolean hasEdge = stripe.graph.hasEdge(node1_id, node2_id);
+
+                if (stripe.lock.validate(stamp)) {
+                    return hasEdge;
+                }
+            } catch (RuntimeException e) {
+                // read an inconsistent state while a mutation of the stripe ran, retry under read lock
+            }
+        }
+
+        stamp = stripe.lock.readLock();
+
+        try {
+            return stripe.graph.hasEdge(node1_id, node2_id);
+        } finally {
+            stripe.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Passes the id of each neighbor of the node of the given id to action, see Graph.forEachNeighbor. Holds the read
+     * lock of the stripe of the node throughout, so that action sees a consistent neighborhood, and so action must not
+     * mutate this graph.
+     *
+     * @param node_id - an id of a node.
+     * @param action  - action to perform on each neighbor id.
+     * @return the number of neighbors of the node, or -1.
+     */
+    public int forEachNeighbor(int node_id, IntConsumer action) {
+        Stripe stripe = this.stripes[this.getStripe(node_id)];
+        long stamp = stripe.lock.readLock();
+
+        try {
+            int degree = stripe.graph.forEachNeighbor(node_id, action);
+
+            if (degree == -1) {
+                return -1;
+            }
+
+            for (int edge = stripe.remoteEdges.first(node_id); edge != RemoteEdges.NIL;
+                 edge = stripe.remoteEdges.getNext(edge)) {
+                action.accept(stripe.remoteEdges.getRemoteId(edge));
+                degree++;
+            }
+
+            return degree;
+        } finally {
+            stripe.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Writes the ids of the neighbors of the node of the given id to dst, as many as fit, see Graph.neighbors.
+     *
+     * @param node_id - an id of a node.
+     * @param dst     - array to write neighbor ids to.
+     * @return the number of neighbors of the node, or -1.
+     */
+    public int neighbors(int node_id, int[] dst) {
+        Stripe stripe = this.stripes[this.getStripe(node_id)];
+        long stamp = stripe.lock.readLock();
+
+        try {
+            int degree = stripe.graph.neighbors(node_id, dst);
+
+            if (degree == -1) {
+                return -1;
+            }
+
+            for (int edge = stripe.remoteEdges.first(node_id); edge != RemoteEdges.NIL;
+                 edge = stripe.remoteEdges.getNext(edge)) {
+                if (degree < dst.length) {
+                    dst[degree] = stripe.remoteEdges.getRemoteId(edge);
+                }
+
+                degree++;
+            }
+
+            return degree;
+        } finally {
+            stripe.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Return number of nodes in graph, summed over the stripes. O(stripes).
+     *
+     * @return number of nodes in graph
+     */
+    public int getNumNodes() {
+        int numNodes = 0;
+
+        for (Stripe stripe : this.stripes) {
+            long stamp = stripe.lock.tryOptimisticRead();
+            int stripeNodes = stripe.graph.getNumNodes();
+
+            if (!stripe.lock.validate(stamp)) {
+                stamp = stripe.lock.readLock();
+
+                try {
+                    stripeNodes = stripe.graph.getNumNodes();
+                } finally {
+                    stripe.lock.unlockRead(stamp);
+                }
+            }
+
+            numNodes += stripeNodes;
+        }
+
+        return numNodes;
+    }
+
+    /**
+     * Return number of edges in graph, summed over the stripes, each edge between stripes being recorded by both its
+     * stripes. O(stripes).
+     *
+     * @return number of edges in graph
+     */
+    public int getNumEdges() {
+        long numEdges = 0, numRemoteEdges = 0;
+
+        for (Stripe stripe : this.stripes) {
+            long stamp = stripe.lock.tryOptimisticRead();
+            int stripeEdges = stripe.graph.getNumEdges(), stripeRemoteEdges = stripe.remoteEdges.getNumConfirmed();
+
+            if (!stripe.lock.validate(stamp)) {
+                stamp = stripe.lock.readLock();
+
+                try {
+                    stripeEdges = stripe.graph.getNumEdges();
+                    stripeRemoteEdges = stripe.remoteEdges.getNumConfirmed();
+                } finally {
+                    stripe.lock.unlockRead(stamp);
+                }
+            }
+
+            numEdges += stripeEdges;
+            numRemoteEdges += stripeRemoteEdges;
+        }
+
+        return (int) (numEdges + numRemoteEdges / 2);
+    }
+
+    /**
+     * Returns number of stripes. O(1).
+     *
+     * @return number of stripes.
+     */
+    public int getNumStripes() {
+        return this.stripes.length;
+    }
+}
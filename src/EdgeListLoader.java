@@ -0,0 +1,323 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class represents a loader that streams edges from edge list files into a graph.
+ * <p>
+ * Edges are parsed straight from NIO buffers into primitive arrays and added through Graph.addEdges one batch at a
+ * time, so no object is allocated per edge and memory use does not depend on the size of the file. An edge listed
+ * twice (in either direction) is added once.
+ * <p>
+ * Two formats are supported:
+ * text   - one edge per line, two node ids separated by whitespace or commas, further columns ignored.
+ * Lines starting with '#' or '%' are comments, and empty lines are skipped. A node id is an optional
+ * '-' followed by decimal digits, in the int range; any other token in the first two columns, or a
+ * line with a single id, fails the load with an IOException naming the line.
+ * binary - consecutive pairs of node ids, as big endian 32 bit ints.
+ */
+public class EdgeListLoader {
+    private static final int BATCH = 1 << 16;
+    private static final int CHUNK_BYTES = 1 << 20;
+    private static final int MAX_MAPPED_BYTES = 1 << 30;
+    private static final long MAX_ID_MAGNITUDE = -(long) Integer.MIN_VALUE;
+
+    private final Graph graph;
+    private final boolean createMissingNodes;
+    private final int missingNodeWeight;
+
+    private final int[] node1Ids;
+    private final int[] node2Ids;
+    private int batchLength;
+
+    private long edgesRead;
+    private long edgesAdded;
+    private long elapsedNanos;
+
+    /**
+     * Creates a new loader into given graph. Edges to nodes that are not in the graph are skipped, or the nodes are
+     * first added to the graph with given weight.
+     *
+     * @param graph              - graph to load edges into.
+     * @param createMissingNodes - whether to add nodes that are not in the graph.
+     * @param missingNodeWeight  - weight of added nodes.
+     */
+    public EdgeListLoader(Graph graph, boolean createMissingNodes, int missingNodeWeight) {
+        this.graph = graph;
+        this.createMissingNodes = createMissingNodes;
+        this.missingNodeWeight = missingNodeWeight;
+
+        this.node1Ids = new int[BATCH];
+        this.node2Ids = new int[BATCH];
+    }
+
+    //LOADING-----------------------------------------------------------------------------------------------------------
+
+    /**
+     * Loads edges from a text edge list, reading it in chunks. Edges of the lines before a malformed line are already
+     * added when the load fails. O(bytes + k log n) for k edges - Expected.
+     *
+     * @param path - path of edge list.
+     * @return the number of edges added.
+     * @throws IOException if reading fails, or a line is malformed.
+     */
+    public long loadText(Path path) throws IOException {
+        byte[] chunk = new byte[CHUNK_BYTES];
+        ByteBuffer buffer = ByteBuffer.wrap(chunk);
+        boolean inNumber = false, negative = false, skipLine = false;
+        int column = 0, firstId = 0, read, id;
+        long value = 0, line = 1;
+        byte b;
+
+        this.start();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while ((read = channel.read(buffer)) >= 0) {
+                for (int i = 0; i < read; i++) {
+                    b = chunk[i];
+
+                    if (b >= '0' && b <= '9' && !skipLine) {
+                        // stop before value can overflow, ids beyond the int range are rejected
+                        if ((value = 10 * value + (b - '0')) > MAX_ID_MAGNITUDE) {
+                            throw EdgeListLoader.malformed(path, line, "node id out of int range");
+                        }
+
+                        inNumber = true;
+                    } else if (b == '-' && !inNumber && !negative && !skipLine) {
+                        negative = true;
+                    } else if (skipLine || b == ' ' || b == '\t' || b == '\r' || b == ',' || b == '\n') {
+                        // end of token, comments and columns after the second are skipped to the end of line
+                        if (inNumber) {
+                            id = EdgeListLoader.toId(path, line, value, negative);
+
+                            if (column++ == 0) {
+                                firstId = id;
+                            } else {
+                                this.add(firstId, id);
+                                skipLine = true;
+                            }
+
+                            value = 0;
+                            inNumber = false;
+                            negative = false;
+                        } else if (negative) {
+                            throw EdgeListLoader.malformed(path, line, "'-' without digits");
+                        }
+
+                        if (b == '\n') {
+                            if (column == 1) {
+                                throw EdgeListLoader.malformed(path, line, "missing second node id");
+                            }
+
+                            column = 0;
+                            skipLine = false;
+                            line++;
+                        }
+                    } else if ((b == '#' || b == '%') && column == 0 && !inNumber && !negative) {
+                        skipLine = true;
+                    } else {
+                        throw EdgeListLoader.malformed(path, line, "unexpected character '" + (char) b + "'");
+                    }
+                }
+
+                buffer.clear();
+            }
+        }
+
+        // last line may not end with a new line
+        if (negative && !inNumber) {
+            throw EdgeListLoader.malformed(path, line, "'-' without digits");
+        } else if ((column == 1) != inNumber) {
+            throw EdgeListLoader.malformed(path, line, "missing second node id");
+        } else if (inNumber) {
+            this.add(firstId, EdgeListLoader.toId(path, line, value, negative));
+        }
+
+        return this.finish();
+    }
+
+    /**
+     * Returns the node id of a token of a text edge list. O(1).
+     *
+     * @param path     - path of edge list.
+     * @param line     - line of token.
+     * @param value    - magnitude of id, at most MAX_ID_MAGNITUDE.
+     * @param negative - whether the token starts with '-'.
+     * @return node id.
+     * @throws IOException if the id is out of the int range.
+     */
+    private static int toId(Path path, long line, long value, boolean negative) throws IOException {
+        if (!negative && value == MAX_ID_MAGNITUDE) {
+            throw EdgeListLoader.malformed(path, line, "node id out of int range");
+        }
+
+        return (int) (negative ? -value : value);
+    }
+
+    /**
+     * Returns the exception for a malformed line of a text edge list. O(1).
+     *
+     * @param path   - path of edge list.
+     * @param line   - line number, from 1.
+     * @param reason - what is malformed.
+     * @return exception.
+     */
+    private static IOException malformed(Path path, long line, String reason) {
+        return new IOException(path + ": line " + line + ": " + reason);
+    }
+
+    /**
+     * Loads edges from a binary edge list, memory mapping at most MAX_MAPPED_BYTES of it at a time.
+     * A trailing incomplete pair is ignored. O(k log n) for k edges - Expected.
+     *
+     * @param path - path of edge list.
+     * @return the number of edges added.
+     * @throws IOException if reading fails.
+     */
+    public long loadBinary(Path path) throws IOException {
+        int[] pairs = new int[2 * BATCH];
+        int length;
+
+        this.start();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long end = channel.size() / (2 * Integer.BYTES) * (2 * Integer.BYTES);
+
+            for (long position = 0, size; position < end; position += size) {
+                size = Math.min(end - position, MAX_MAPPED_BYTES);
+
+                IntBuffer ints = channel.map(FileChannel.MapMode.READ_ONLY, position, size).asIntBuffer();
+
+                while (ints.hasRemaining()) {
+                    length = Math.min(ints.remaining(), pairs.length);
+                    ints.get(pairs, 0, length);
+
+                    for (int i = 0; i < length; i += 2) {
+                        this.add(pairs[i], pairs[i + 1]);
+                    }
+                }
+            }
+        }
+
+        return this.finish();
+    }
+
+    /**
+     * Resets statistics at start of load.
+     */
+    private void start() {
+        this.batchLength = 0;
+        this.edgesRead = 0;
+        this.edgesAdded = 0;
+        this.elapsedNanos = System.nanoTime();
+    }
+
+    /**
+     * Adds remaining batch and completes statistics at end of load.
+     *
+     * @return the number of edges added.
+     */
+    private long finish() {
+        this.flush();
+        this.elapsedNanos = System.nanoTime() - this.elapsedNanos;
+
+        return this.edgesAdded;
+    }
+
+    /**
+     * Appends an edge to batch, adding the batch to the graph when full. O(1) - Amortized.
+     *
+     * @param node1_id - the id of the first node.
+     * @param node2_id - the id of the second node.
+     */
+    private void add(int node1_id, int node2_id) {
+        this.node1Ids[this.batchLength] = node1_id;
+        this.node2Ids[this.batchLength++] = node2_id;
+        this.edgesRead++;
+
+        if (this.batchLength == BATCH) {
+            this.flush();
+        }
+    }
+
+    /**
+     * Adds batch to the graph, first adding missing nodes if required.
+     */
+    private void flush() {
+        if (this.createMissingNodes) {
+            for (int i = 0; i < this.batchLength; i++) {
+                this.addMissingNode(this.node1Ids[i]);
+                this.addMissingNode(this.node2Ids[i]);
+            }
+        }
+
+        this.edgesAdded += this.graph.addEdges(this.node1Ids, this.node2Ids, this.batchLength);
+        this.batchLength = 0;
+    }
+
+    /**
+     * Adds node of given id to the graph, if not in the graph.
+     *
+     * @param node_id - the id of the node.
+     */
+    private void addMissingNode(int node_id) {
+        if (!this.graph.containsNode(node_id)) {
+            this.graph.addNode(new Graph.Node(node_id, this.missingNodeWeight));
+        }
+    }
+
+    //STATISTICS--------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the number of edges read by the last load. O(1).
+     *
+     * @return the number of edges read.
+     */
+    public long getEdgesRead() {
+        return this.edgesRead;
+    }
+
+    /**
+     * Returns the number of edges added by the last load. O(1).
+     *
+     * @return the number of edges added.
+     */
+    public long getEdgesAdded() {
+        return this.edgesAdded;
+    }
+
+    /**
+     * Returns the number of edges read per second by the last load. O(1).
+     *
+     * @return edges read per second.
+     */
+    public double getEdgesPerSecond() {
+        return this.edgesRead / (this.elapsedNanos / 1e9);
+    }
+
+    /**
+     * Loads an edge list into an empty graph, adding every node with weight 1, and prints the load throughput.
+     * Usage: java EdgeListLoader path [text|binary].
+     *
+     * @param args - path of edge list, and its format (text by default).
+     * @throws IOException if reading fails.
+     */
+    public static void main(String[] args) throws IOException {
+        Graph graph = new Graph();
+        EdgeListLoader loader = new EdgeListLoader(graph, true, 1);
+        Path path = Paths.get(args[0]);
+
+        if (args.length > 1 && args[1].equals("binary")) {
+            loader.loadBinary(path);
+        } else {
+            loader.loadText(path);
+        }
+
+        System.out.printf("%d edges read, %d added, %d nodes, %.0f edges/s%n",
+                loader.getEdgesRead(), loader.getEdgesAdded(), graph.getNumNodes(), loader.getEdgesPerSecond());
+    }
+}
@@ -0,0 +1,247 @@
+/**
+ * This class represents a read only graph, as frozen by Graph.freeze.
+ * <p>
+ * Nodes are stored in parallel primitive arrays by rank, the heaviest neighborhood first, so the ranking of
+ * neighborhood weights is precomputed and the max neighborhood is rank 0. Adjacency is stored as compressed sparse
+ * rows: the neighbor ids of every node are sorted, delta encoded and written as variable length integers into a
+ * single byte array, usually one or two bytes per edge. Nodes are found by id through an open addressing table of
+ * ranks.
+ */
+public class FrozenGraph {
+    private final int numEdges;
+
+    // by rank
+    private final int[] ids;
+    private final int[] weights;
+    private final long[] neighborhoodWeights;
+    private final int[] offsets;
+
+    private final byte[] adjacency;
+
+    // rank + 1 of node in each slot, or 0 if empty
+    private final int[] table;
+    private final int shift;
+
+    /**
+     * Creates a new frozen graph, given its nodes by rank and their adjacency. O(n).
+     *
+     * @param ids                 - ids of nodes by rank.
+     * @param weights             - weights of nodes by rank.
+     * @param neighborhoodWeights - neighborhood weights of nodes by rank, in non increasing order.
+     * @param offsets             - n+1 offsets, the neighbors of the node of rank r are encoded in
+     *                            adjacency[offsets[r]..offsets[r+1]-1].
+     * @param adjacency           - encoded neighbors.
+     * @param numEdges            - number of edges.
+     */
+    FrozenGraph(int[] ids, int[] weights, long[] neighborhoodWeights, int[] offsets, byte[] adjacency, int numEdges) {
+        this.ids = ids;
+        this.weights = weights;
+        this.neighborhoodWeights = neighborhoodWeights;
+        this.offsets = offsets;
+        this.adjacency = adjacency;
+        this.numEdges = numEdges;
+
+        // power of two table, at most half full
+        int bits = 1;
+
+        while ((1 << bits) < 2 * ids.length) {
+            bits++;
+        }
+
+        this.table = new int[1 << bits];
+        this.shift = 32 - bits;
+
+        for (int rank = 0; rank < ids.length; rank++) {
+            this.table[this.getSlot(ids[rank])] = rank + 1;
+        }
+    }
+
+    //ENCODING----------------------------------------------------------------------------------------------------------
+
+    /**
+     * Writes neighbor ids, given sorted, to buffer: the first as a zigzag encoded varint and every other as the varint
+     * of its difference from the previous. Returns position in buffer after the neighbors written, or -1 if the buffer
+     * is too short. O(d).
+     *
+     * @param neighborIds - sorted neighbor ids.
+     * @param degree      - number of neighbor ids.
+     * @param buffer      - buffer.
+     * @param position    - position in buffer.
+     * @return position after neighbors written, or -1.
+     */
+    static int encode(int[] neighborIds, int degree, byte[] buffer, int position) {
+        long value;
+
+        for (int i = 0; i < degree; i++) {
+            value = i == 0 ? (neighborIds[0] << 1) ^ (neighborIds[0] >> 31)
+                    : (long) neighborIds[i] - neighborIds[i - 1];
+            value &= 0xFFFFFFFFL;
+
+            do {
+                if (position == buffer.length) {
+                    return -1;
+                }
+
+                buffer[position++] = (byte) (value >= 0x80 ? (value & 0x7F) | 0x80 : value);
+                value >>>= 7;
+            } while (value != 0);
+        }
+
+        return position;
+    }
+
+    //QUERIES-----------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns slot of node with given id, or the empty slot ending its probe sequence. O(1) - Expected.
+     *
+     * @param nodeId - id of node.
+     * @return slot of node with given id, or empty slot.
+     */
+    private int getSlot(int nodeId) {
+        int slot = (nodeId * 0x9E3779B9) >>> this.shift;
+
+        while (this.table[slot] != 0 && this.ids[this.table[slot] - 1] != nodeId) {
+            slot = (slot + 1) & (this.table.length - 1);
+        }
+
+        return slot;
+    }
+
+    /**
+     * Returns rank of node with given id, or -1 if no such node exists. O(1) - Expected.
+     *
+     * @param nodeId - id of node.
+     * @return rank of node, or -1.
+     */
+    private int getRank(int nodeId) {
+        return this.table[this.getSlot(nodeId)] - 1;
+    }
+
+    /**
+     * Returns a node with the id and weight of the node with the maximum neighborhood weight, or null if graph is
+     * empty. O(1).
+     *
+     * @return the node with the maximum neighborhood weight, or null.
+     */
+    public Graph.Node maxNeighborhoodWeight() {
+        return this.ids.length == 0 ? null : new Graph.Node(this.ids[0], this.weights[0]);
+    }
+
+    /**
+     * Returns nodes with the ids and weights of the k nodes with the maximum neighborhood weights, from heaviest to
+     * lightest, or of all nodes if there are less than k. O(k).
+     *
+     * @param k - number of nodes to return.
+     * @return the nodes with the k maximum neighborhood weights.
+     */
+    public Graph.Node[] topK(int k) {
+        Graph.Node[] nodes = new Graph.Node[Math.max(0, Math.min(k, this.ids.length))];
+
+        for (int rank = 0; rank < nodes.length; rank++) {
+            nodes[rank] = new Graph.Node(this.ids[rank], this.weights[rank]);
+        }
+
+        return nodes;
+    }
+
+    /**
+     * Returns the neighborhood weight of the node of the given id, or -1 if no such node exists. O(1) - Expected.
+     *
+     * @param node_id - an id of a node.
+     * @return the neighborhood weight of the node, or -1.
+     * @throws ArithmeticException if the neighborhood weight does not fit in an int.
+     */
+    public int getNeighborhoodWeight(int node_id) {
+        int rank = this.getRank(node_id);
+
+        return rank == -1 ? -1 : Math.toIntExact(this.neighborhoodWeights[rank]);
+    }
+
+    /**
+     * Returns the neighborhood weight of the node of the given id as a long, or -1 if no such node exists.
+     * O(1) - Expected.
+     *
+     * @param node_id - an id of a node.
+     * @return the neighborhood weight of the node, or -1.
+     */
+    public long getNeighborhoodWeightLong(int node_id) {
+        int rank = this.getRank(node_id);
+
+        return rank == -1 ? -1 : this.neighborhoodWeights[rank];
+    }
+
+    /**
+     * Returns whether a node of the given id exists in the graph. O(1) - Expected.
+     *
+     * @param node_id - an id of a node.
+     * @return 'true' if a node of id 'node_id' exists in the graph, otherwise 'false'.
+     */
+    public boolean containsNode(int node_id) {
+        return this.getRank(node_id) != -1;
+    }
+
+    /**
+     * Returns the ids of the neighbors of the node of the given id in increasing order, or null if no such node
+     * exists. O(d) - Expected.
+     *
+     * @param node_id - an id of a node.
+     * @return the ids of the neighbors of the node, or null.
+     */
+    public int[] getNeighbors(int node_id) {
+        int rank = this.getRank(node_id), degree = 0, position, end, shift, neighborId = 0;
+        long value;
+
+        if (rank == -1) {
+            return null;
+        }
+
+        end = this.offsets[rank + 1];
+
+        // every encoded value ends with a byte that has no continuation bit
+        for (position = this.offsets[rank]; position < end; position++) {
+            if (this.adjacency[position] >= 0) {
+                degree++;
+            }
+        }
+
+        int[] neighbors = new int[degree];
+
+        position = this.offsets[rank];
+
+        for (int i = 0; i < degree; i++) {
+            value = 0;
+            shift = 0;
+
+            while (this.adjacency[position] < 0) {
+                value |= (long) (this.adjacency[position++] & 0x7F) << shift;
+                shift += 7;
+            }
+
+            value |= (long) this.adjacency[position++] << shift;
+
+            neighborId = i == 0 ? ((int) value >>> 1) ^ -((int) value & 1) : (int) (neighborId + value);
+            neighbors[i] = neighborId;
+        }
+
+        return neighbors;
+    }
+
+    /**
+     * Return number of nodes in graph. O(1).
+     *
+     * @return number of nodes in graph
+     */
+    public int getNumNodes() {
+        return this.ids.length;
+    }
+
+    /**
+     * Return number of edges in graph. O(1).
+     *
+     * @return number of edges in graph
+     */
+    public int getNumEdges() {
+        return this.numEdges;
+    }
+}
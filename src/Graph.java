@@ -15,15 +15,31 @@ You are allowed to add classes, methods, and members as required.
  */
 
 
-import java.util.Iterator;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
 
 /**
  * This class represents a graph that efficiently maintains the heaviest neighborhood over edge addition and
  * vertex deletion.
  */
-public class Graph {
-    private static int P = (int) Math.pow(10, 9) + 9;
+public class Graph implements NeighborhoodGraph {
+    private static final int DEFAULT_HEAP_ARITY = 4;
 
     //BASE CLASSES------------------------------------------------------------------------------------------------------
 
@@ -33,8 +49,8 @@ public class Graph {
     public static class Node {
         private int id;
         private int weight;
-        private EdgeDLL edges;
-        private Neighborhood neighborhood;
+        private int firstEdge;
+        private int slot;
 
         /**
          * Creates a new node object, given its id and its weight. O(1).
@@ -45,8 +61,8 @@ public class Graph {
         public Node(int id, int weight) {
             this.id = id;
             this.weight = weight;
-            this.edges = new EdgeDLL();
-            this.neighborhood = new Neighborhood(this);
+            this.firstEdge = EdgePool.NIL;
+            this.slot = -1;
         }
 
         /**
@@ -69,244 +85,322 @@ public class Graph {
     }
 
     /**
-     * This class represents an edge emanating from a node in the graph.
+     * This class represents an immutable record of the node with the maximum neighborhood weight and that weight,
+     * as published by the graph after a mutation.
      */
-    private class Edge {
-        private int neighborNodeId;
-        private DLLNode<Edge> reciprocalEdge;
+    public static final class MaxNeighborhood {
+        private final Node node;
+        private final long weight;
 
         /**
-         * Creates a new edge object, given id of node to which it connects. O(1).
+         * Creates a new max neighborhood object, given its node and neighborhood weight. O(1).
          *
-         * @param neighborNodeId - id of node to which it connects.
+         * @param node   - node with the maximum neighborhood weight.
+         * @param weight - neighborhood weight of node.
          */
-        private Edge(int neighborNodeId) {
-            this.neighborNodeId = neighborNodeId;
+        private MaxNeighborhood(Node node, long weight) {
+            this.node = node;
+            this.weight = weight;
         }
-    }
-
-    /**
-     * This class represents a neighborhood of a node in the graph.
-     */
-    private static class Neighborhood {
-        private int weight;
-        private int nodeId;
-        private int heapIndex;
 
         /**
-         * Creates a new neighborhood object, given its node. O(1).
+         * Returns the node with the maximum neighborhood weight. O(1).
          *
-         * @param node - node of neighborhood.
+         * @return the node with the maximum neighborhood weight.
          */
-        private Neighborhood(Node node) {
-            this.weight = node.getWeight();
-            this.nodeId = node.getId();
+        public Node getNode() {
+            return this.node;
         }
-    }
-
-    //DOUBLY LINKED LISTS-----------------------------------------------------------------------------------------------
-
-    /**
-     * This class represents a node in a doubly linked list.
-     */
-    private static class DLLNode<T> {
-        private DLLNode<T> prev;
-        private T info;
-        private DLLNode<T> next;
 
         /**
-         * Creates a new dll node object, given its info. O(1).
+         * Returns the neighborhood weight of the node. O(1).
          *
-         * @param info - info of dll node.
+         * @return the neighborhood weight of the node.
          */
-        private DLLNode(T info) {
-            this.prev = this;
-            this.info = info;
-            this.next = this;
+        public long getWeight() {
+            return this.weight;
         }
     }
 
+    //EDGE POOL---------------------------------------------------------------------------------------------------------
+
     /**
-     * This class represents a doubly linked list.
+     * This class represents a pool of edges stored in parallel primitive arrays.
+     * Edges are allocated in pairs, so the reciprocal of edge e is always edge e ^ 1.
+     * The edges emanating from a node form a doubly linked list threaded through the prev and next arrays,
+     * starting at the first edge of the node.
      */
-    private static class DLL<T> {
-        protected DLLNode<T> sentinel;
-        protected int length;
+    private static class EdgePool {
+        private static final int NIL = -1;
+
+        private int[] neighborNodeIds;
+        private int[] prev;
+        private int[] next;
+
+        private int used;
+        private int free;
 
         /**
-         * Creates a new dll object. O(1).
+         * Creates a new empty edge pool object, given its initial capacity in edges. O(capacity).
+         *
+         * @param capacity - initial capacity in edges.
          */
-        private DLL() {
-            this.sentinel = new DLLNode<>(null);
-            this.length = 0;
+        private EdgePool(int capacity) {
+            capacity = Math.max(2, capacity + (capacity & 1));
+
+            this.neighborNodeIds = new int[capacity];
+            this.prev = new int[capacity];
+            this.next = new int[capacity];
+
+            this.used = 0;
+            this.free = NIL;
         }
 
         /**
-         * Adds a new dll node containing info to start of dll and returns added dll node. O(1).
+         * Returns first edge of a pair of unused edges, reusing freed pairs when possible. O(1) - Amortized.
          *
-         * @param info - info of added dll node.
-         * @return added dll node.
+         * @return first edge of pair.
          */
-        protected DLLNode<T> insert(T info) {
-            DLLNode<T> dllNode = new DLLNode<>(info);
-
-            dllNode.prev = this.sentinel;
-            dllNode.next = this.sentinel.next;
-
-            this.sentinel.next = dllNode;
-            dllNode.next.prev = dllNode;
+        private int allocatePair() {
+            int edge;
+
+            if (this.free != NIL) {
+                // pop pair from free list
+                edge = this.free;
+                this.free = this.next[edge];
+            } else {
+                // double arrays if full
+                if (this.used == this.next.length) {
+                    int capacity = 2 * this.next.length;
+
+                    this.neighborNodeIds = Arrays.copyOf(this.neighborNodeIds, capacity);
+                    this.prev = Arrays.copyOf(this.prev, capacity);
+                    this.next = Arrays.copyOf(this.next, capacity);
+                }
 
-            // increment length by 1
-            this.length++;
+                edge = this.used;
+                this.used += 2;
+            }
 
-            return dllNode;
+            return edge;
         }
 
         /**
-         * Deletes dll node, given reference. O(1).
+         * Returns pair of given edge to free list. O(1).
          *
-         * @param dllNode - dll node reference.
+         * @param edge - edge of pair.
          */
-        protected void delete(DLLNode<T> dllNode) {
-            dllNode.prev.next = dllNode.next;
-            dllNode.next.prev = dllNode.prev;
+        private void freePair(int edge) {
+            edge &= ~1;
 
-            // decrement length by 1
-            this.length--;
+            this.next[edge] = this.free;
+            this.free = edge;
         }
-    }
 
-    /**
-     * This class represents a doubly linked list of node objects.
-     */
-    private class NodeDLL extends DLL<Node> {
         /**
-         * Returns dll node containing info node with given id, or null if no such dll node exists. O(n).
+         * Adds edge to start of edge list of node. O(1).
          *
-         * @param nodeId - id of info node.
-         * @return dll node containing info node with given id, or null.
+         * @param node - node.
+         * @param edge - edge.
          */
-        private DLLNode<Node> getDLLNode(int nodeId) {
-            DLLNode<Node> dllNode = this.sentinel;
+        private void link(Node node, int edge) {
+            this.prev[edge] = NIL;
+            this.next[edge] = node.firstEdge;
 
-            while ((dllNode = dllNode.next) != this.sentinel) {
-                if (dllNode.info.getId() == nodeId) {
-                    return dllNode;
-                }
+            if (node.firstEdge != NIL) {
+                this.prev[node.firstEdge] = edge;
             }
 
-            return null;
+            node.firstEdge = edge;
         }
 
         /**
-         * Returns info node contained in dll node with given id, or null if no such node exists. O(n).
+         * Removes edge from edge list of node. O(1).
          *
-         * @param nodeId - id of info node.
-         * @return info node contained in dll node with given id, or null.
+         * @param node - node.
+         * @param edge - edge.
          */
-        private Node getNode(int nodeId) {
-            DLLNode<Node> dllNode = this.getDLLNode(nodeId);
+        private void unlink(Node node, int edge) {
+            if (this.prev[edge] == NIL) {
+                node.firstEdge = this.next[edge];
+            } else {
+                this.next[this.prev[edge]] = this.next[edge];
+            }
 
-            return dllNode == null ? null : dllNode.info;
+            if (this.next[edge] != NIL) {
+                this.prev[this.next[edge]] = this.prev[edge];
+            }
         }
 
         /**
-         * Delete dll node containing info node with given id, if exists. O(n).
+         * Adds a pair of reciprocal edges between two nodes. O(1) - Amortized.
          *
-         * @param nodeId - id of info node.
+         * @param node1 - first node.
+         * @param node2 - second node.
+         * @return the edge from the first node to the second.
          */
-        private void delete(int nodeId) {
-            DLLNode<Node> dllNode = this.getDLLNode(nodeId);
+        private int insert(Node node1, Node node2) {
+            int edge1to2 = this.allocatePair(), edge2to1 = edge1to2 ^ 1;
 
-            if (dllNode != null) {
-                this.delete(dllNode);
-            }
+            this.neighborNodeIds[edge1to2] = node2.getId();
+            this.neighborNodeIds[edge2to1] = node1.getId();
+
+            this.link(node1, edge1to2);
+            this.link(node2, edge2to1);
+
+            return edge1to2;
         }
     }
 
+    //NODE HASH TABLE---------------------------------------------------------------------------------------------------
+
     /**
-     * This class represents a doubly linked list of edge objects.
+     * This class represents an open addressing hash table of node objects, keyed by node id, over parallel key and
+     * value arrays, with an empty slot holding a null value. Probing, migration when doubling and rehashing with a new
+     * hash function when ids cluster are those of ProbingHashTable, which this class provides storage to, so a key is
+     * the id as an unsigned int.
      */
-    private static class EdgeDLL extends DLL<Edge> implements Iterable<Edge> {
-        private class EdgeDLLIterator implements Iterator<Edge> {
-            DLLNode<Edge> currDLLNode;
+    private class NodeHashTable extends ProbingHashTable {
+        private int[] keys;
+        private Node[] values;
 
-            private EdgeDLLIterator() {
-                this.currDLLNode = EdgeDLL.this.sentinel.next;
-            }
+        private int[] oldKeys;
+        private Node[] oldValues;
 
-            @Override
-            public boolean hasNext() {
-                return this.currDLLNode != EdgeDLL.this.sentinel;
-            }
+        /**
+         * Creates a new hash table object with random multiply-add-shift hash function, given the number of nodes it
+         * should hold. The table is kept at most half full. O(size).
+         *
+         * @param size - number of nodes.
+         */
+        private NodeHashTable(int size) {
+            super(size);
 
-            @Override
-            public Edge next() {
-                DLLNode<Edge> dllNode = currDLLNode;
-                this.currDLLNode = this.currDLLNode.next;
-                return dllNode.info;
-            }
+            this.keys = new int[this.getCapacity()];
+            this.values = new Node[this.getCapacity()];
         }
 
         /**
-         * Returns iterator of edge dll. O(1).
+         * Returns whether slot of table is empty, holding no node. O(1).
          *
-         * @return iterator of edge dll.
+         * @param table - CURRENT or OLD.
+         * @param slot  - slot.
+         * @return 'true' if slot is empty, otherwise 'false'.
          */
         @Override
-        public Iterator<Edge> iterator() {
-            return new EdgeDLLIterator();
+        boolean isEmpty(int table, int slot) {
+            return (table == CURRENT ? this.values : this.oldValues)[slot] == null;
         }
-    }
 
-    //NODE HASH TABLE---------------------------------------------------------------------------------------------------
+        /**
+         * Returns id of node of slot of table as an unsigned int. O(1).
+         *
+         * @param table - CURRENT or OLD.
+         * @param slot  - slot.
+         * @return key.
+         */
+        @Override
+        long getKey(int table, int slot) {
+            return (table == CURRENT ? this.keys : this.oldKeys)[slot] & 0xFFFFFFFFL;
+        }
 
-    /**
-     * This class represents a hash table of node objects.
-     */
-    private class NodeHashTable {
-        private NodeDLL[] hashTable;
+        /**
+         * Copies id and node of slot of table into slot of the current table. O(1).
+         *
+         * @param table - CURRENT or OLD.
+         * @param from  - slot of table.
+         * @param to    - slot of current table.
+         */
+        @Override
+        void copy(int table, int from, int to) {
+            this.keys[to] = (table == CURRENT ? this.keys : this.oldKeys)[from];
+            this.values[to] = (table == CURRENT ? this.values : this.oldValues)[from];
+        }
 
-        private int m;
-        private int a;
-        private int b;
+        /**
+         * Empties slot of table. O(1).
+         *
+         * @param table - CURRENT or OLD.
+         * @param slot  - slot.
+         */
+        @Override
+        void clear(int table, int slot) {
+            (table == CURRENT ? this.values : this.oldValues)[slot] = null;
+        }
 
         /**
-         * Creates a new hash table object with random modular hash function, given its size. O(1).
+         * Makes the current arrays the old arrays, and allocates empty current arrays of given size. O(capacity).
+         *
+         * @param capacity - number of slots of new table, a power of two.
          */
-        private NodeHashTable(int size) {
-            this.hashTable = new NodeDLL[size];
+        @Override
+        void allocate(int capacity) {
+            this.oldKeys = this.keys;
+            this.oldValues = this.values;
+            this.keys = new int[capacity];
+            this.values = new Node[capacity];
+        }
+
+        /**
+         * Releases the old arrays. O(1).
+         */
+        @Override
+        void release() {
+            this.oldKeys = null;
+            this.oldValues = null;
+        }
 
-            this.m = this.hashTable.length;
+        /**
+         * Records the number of slots probed by a lookup into the metrics, if attached. O(1).
+         *
+         * @param probeLength - number of slots probed.
+         */
+        @Override
+        void recordProbe(int probeLength) {
+            if (Graph.this.metrics != null) {
+                Graph.this.metrics.recordProbe(probeLength);
+            }
+        }
 
-            Random rand = new Random();
-            this.a = 1 + rand.nextInt(Graph.P - 1);
-            this.b = rand.nextInt(Graph.P);
+        /**
+         * Records a rehash into the metrics, if attached. O(1).
+         */
+        @Override
+        void recordRehash() {
+            if (Graph.this.metrics != null) {
+                Graph.this.metrics.recordRehash();
+            }
         }
 
         /**
-         * Returns hash value of given integer. O(1).
+         * Inserts node into current table, concurrently with other calls of this method, before any other operation.
+         * An empty slot is claimed by compare and set, and keys are only read once all calls have completed, after
+         * which the caller sets the size. O(1) - Expected.
          *
-         * @param i - integer.
-         * @return hash value of integer.
+         * @param node - node.
          */
-        private int getHashValue(int i) {
-            return Math.floorMod(Math.floorMod((a * i + b), Graph.P), m);
+        private void putConcurrently(Node node) {
+            int mask = this.keys.length - 1, slot = this.getHome(node.getId() & 0xFFFFFFFFL);
+
+            while (!NODES.compareAndSet(this.values, slot, (Node) null, node)) {
+                slot = (slot + 1) & mask;
+            }
+
+            this.keys[slot] = node.getId();
         }
 
         /**
-         * Inserts node. O(1).
+         * Inserts node, which must not be in table. O(1) - Expected amortized.
          *
          * @param node - node.
          */
         private void insert(Node node) {
-            int hashValue = this.getHashValue(node.getId());
+            int slot = this.reserve(node.getId() & 0xFFFFFFFFL);
 
-            if (this.hashTable[hashValue] == null) {
-                this.hashTable[hashValue] = new NodeDLL();
-            }
+            this.keys[slot] = node.getId();
+            this.values[slot] = node;
 
-            this.hashTable[hashValue].insert(node);
+            this.inserted(slot);
         }
 
         /**
@@ -316,9 +410,13 @@ public class Graph {
          * @return node with given id, or null.
          */
         private Node get(int nodeId) {
-            int hashValue = this.getHashValue(nodeId);
+            int slot = this.find(nodeId & 0xFFFFFFFFL);
+
+            if (slot == NIL) {
+                return null;
+            }
 
-            return this.hashTable[hashValue] == null ? null : this.hashTable[hashValue].getNode(nodeId);
+            return (slot & OLD_SLOT) == 0 ? this.values[slot] : this.oldValues[slot ^ OLD_SLOT];
         }
 
         /**
@@ -327,301 +425,2085 @@ public class Graph {
          * @param nodeId - id of node.
          */
         private void delete(int nodeId) {
-            int hashValue = this.getHashValue(nodeId);
-
-            if (this.hashTable[hashValue] != null) {
-                this.hashTable[hashValue].delete(nodeId);
-
-                if (this.hashTable[hashValue].length == 0) {
-                    this.hashTable[hashValue] = null;
-                }
-            }
+            this.delete(nodeId & 0xFFFFFFFFL);
         }
     }
 
-    //NEIGHBORHOOD MAX HEAP---------------------------------------------------------------------------------------------
+    //EDGE HASH TABLE---------------------------------------------------------------------------------------------------
 
     /**
-     * This class represents a max binary heap of neighborhood objects. Heap order determined by neighborhood weight.
+     * This class represents an open addressing hash table of edges, keyed by the unordered pair of ids of their nodes.
+     * A pair is packed into a long with the smaller id in the high half, so 0 is never a key and marks an empty slot.
+     * Collisions are resolved by linear probing over parallel key and edge arrays, and deletions shift subsequent
+     * entries backward, as in the node hash table. The edge kept for a pair is the one emanating from the node of the
+     * smaller id, the other is its reciprocal. The table doubles when it becomes half full.
      */
-    private class MaxNeighborhoodHeap {
-        /**
-         * Functions in this class assume that heap is not empty (size>0) and indexes given are legal (less than size).
-         */
+    private static class EdgeHashTable {
+        private static final int MAX_BITS = 30;
 
-        private Neighborhood[] heap;
+        private long[] keys;
+        private int[] edges;
         private int size;
 
+        private int shift;
+        private final long multiplier;
+
         /**
-         * Creates a new max binary heap of neighborhood objects, given array of neighborhood objects. O(n).
+         * Creates a new hash table object with random multiply-shift hash function, given the number of edges it
+         * should hold. The table is kept at most half full. O(size).
          *
-         * @param neighborhoods - array of neighborhood objects.
+         * @param size - number of edges.
          */
-        private MaxNeighborhoodHeap(Neighborhood[] neighborhoods) {
-            this.heap = neighborhoods;
-            this.size = this.heap.length;
+        private EdgeHashTable(int size) {
+            int bits = 1;
 
-            // convert array to max binary heap using heapify down from the bottom up
-            for (int i = (this.size / 2) - 1; i >= 0; i--) {
-                heapifyDown(i);
+            while (bits < MAX_BITS && (1 << bits) < 2 * (long) size) {
+                bits++;
             }
+
+            this.keys = new long[1 << bits];
+            this.edges = new int[this.keys.length];
+            this.size = 0;
+
+            this.shift = 64 - bits;
+            this.multiplier = new Random().nextLong() | 1;
         }
 
         /**
-         * Swaps neighborhood objects, given their indexes. O(1).
+         * Returns key of the unordered pair of given ids. O(1).
          *
-         * @param i - index of first neighborhood.
-         * @param j - index of second neighborhood.
+         * @param id1 - first id.
+         * @param id2 - second id.
+         * @return key of pair.
          */
-        private void swap(int i, int j) {
-            Neighborhood tmp = this.heap[i];
-
-            this.heap[j].heapIndex = i;
-            this.heap[i] = this.heap[j];
-
-            tmp.heapIndex = j;
-            this.heap[j] = tmp;
+        private static long getKey(int id1, int id2) {
+            return ProbingHashTable.getPairKey(id1, id2);
         }
 
         /**
-         * Heapify down neighborhood object, given its index. O(log n).
+         * Returns slot containing given key, or the empty slot ending its probe sequence. O(1) - Expected.
          *
-         * @param i - index of neighborhood.
+         * @param key - key.
+         * @return slot of key, or empty slot.
          */
-        private void heapifyDown(int i) {
-            int max = i, leftChild = 2 * i + 1, rightChild = 2 * i + 2;
-
-            if (leftChild < this.size && this.heap[leftChild].weight > this.heap[max].weight) {
-                max = leftChild;
-            }
+        private int getSlot(long key) {
+            int mask = this.keys.length - 1, slot = (int) ((key * this.multiplier) >>> this.shift);
 
-            if (rightChild < this.size && this.heap[rightChild].weight > this.heap[max].weight) {
-                max = rightChild;
+            while (this.keys[slot] != 0 && this.keys[slot] != key) {
+                slot = (slot + 1) & mask;
             }
 
-            if (max != i) {
-                this.swap(i, max);
-                this.heapifyDown(max);
-            }
+            return slot;
         }
 
         /**
-         * Heapify up neighborhood object, given its index. O(log n).
+         * Returns the edge from the node of the first id to the node of the second, or NIL if there is no such edge.
+         * O(1) - Expected.
          *
-         * @param i - index of neighborhood.
+         * @param id1 - id of first node.
+         * @param id2 - id of second node.
+         * @return edge, or NIL.
          */
-        private void heapifyUp(int i) {
-            while (i > 0 && this.heap[i].weight > this.heap[(i - 1) / 2].weight) {
-                this.swap(i, (i - 1) / 2);
-                i = (i - 1) / 2;
+        private int get(int id1, int id2) {
+            int slot = this.getSlot(EdgeHashTable.getKey(id1, id2));
+
+            if (this.keys[slot] == 0) {
+                return EdgePool.NIL;
             }
+
+            return id1 < id2 ? this.edges[slot] : this.edges[slot] ^ 1;
         }
 
         /**
-         * Changes weight of neighborhood object by delta and heapifies, given its index and change in weight. O(log n).
+         * Inserts edge from the node of the first id to the node of the second, which must not be in the table.
+         * O(1) - Expected amortized.
          *
-         * @param i     - index of neighborhood.
-         * @param delta - change in weight.
+         * @param id1  - id of first node.
+         * @param id2  - id of second node.
+         * @param edge - edge from first node to second.
          */
-        private void changeKey(int i, int delta) {
-            this.heap[i].weight += delta;
-
-            if (delta > 0) {
-                this.heapifyUp(i);
-            } else if (delta < 0) {
-                this.heapifyDown(i);
+        private void insert(int id1, int id2, int edge) {
+            if (2 * (this.size + 1) > this.keys.length) {
+                this.grow();
             }
+
+            long key = EdgeHashTable.getKey(id1, id2);
+            int slot = this.getSlot(key);
+
+            this.keys[slot] = key;
+            this.edges[slot] = id1 < id2 ? edge : edge ^ 1;
+            this.size++;
         }
 
         /**
-         * Deletes neighborhood object, given its index. O(log n).
+         * Inserts edge from the node of the first id to the node of the second, concurrently with other calls of this
+         * method, unless the pair is already in the table. An empty slot is claimed by compare and set of its key,
+         * and edges are only read once all calls have completed. The table must be large enough for all the edges.
+         * O(1) - Expected.
          *
-         * @param i - index of neighborhood.
+         * @param id1  - id of first node.
+         * @param id2  - id of second node.
+         * @param edge - edge from first node to second.
+         * @return 'true' if the edge was inserted, otherwise 'false'.
          */
-        private void delete(int i) {
-            int deletedW = this.heap[i].weight, replacedW = this.heap[this.size - 1].weight;
+        private boolean insertConcurrently(int id1, int id2, int edge) {
+            long key = EdgeHashTable.getKey(id1, id2), witness;
+            int mask = this.keys.length - 1, slot = (int) ((key * this.multiplier) >>> this.shift);
 
-            // swap with last
-            this.swap(i, this.size - 1);
+            while ((witness = (long) LONGS.compareAndExchange(this.keys, slot, 0L, key)) != 0) {
+                if (witness == key) {
+                    return false;
+                }
 
-            // delete neighborhood from array
-            this.heap[this.size - 1] = null;
+                slot = (slot + 1) & mask;
+            }
 
-            // decrement size by 1
-            this.size--;
+            this.edges[slot] = id1 < id2 ? edge : edge ^ 1;
 
-            // heapify as needed
-            if (replacedW > deletedW) {
-                this.heapifyUp(i);
-            } else if (replacedW < deletedW) {
-                this.heapifyDown(i);
-            }
+            return true;
         }
 
         /**
-         * Returns node id of max neighborhood weight. O(1).
+         * Deletes the pair of given ids, if exists. O(1) - Expected.
          *
-         * @return node id of max neighborhood weight.
+         * @param id1 - first id.
+         * @param id2 - second id.
          */
-        private int getMaxNeighborhoodNodeId() {
-            return this.heap[0].nodeId;
-        }
-    }
+        private void delete(int id1, int id2) {
+            int mask = this.keys.length - 1, hole = this.getSlot(EdgeHashTable.getKey(id1, id2)), slot = hole, home;
 
-    //GRAPH-------------------------------------------------------------------------------------------------------------
-    /**
-     * Functions in this class assume that user will not cause insertion of duplicated.
-     */
+            if (this.keys[hole] == 0) {
+                return;
+            }
 
-    private int numNodes;
-    private int numEdges;
+            // shift back every following entry of the probe run whose home slot is not between the hole and itself
+            while (this.keys[slot = (slot + 1) & mask] != 0) {
+                home = (int) ((this.keys[slot] * this.multiplier) >>> this.shift);
 
-    private NodeHashTable nodes;
-    private MaxNeighborhoodHeap maxNeighborhoodHeap;
+                if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                    this.keys[hole] = this.keys[slot];
+                    this.edges[hole] = this.edges[slot];
+                    hole = slot;
+                }
+            }
 
-    /**
-     * Initializes the graph on a given set of nodes,
-     * by creating a hash table of nodes and a max binary heap of their neighborhoods.
-     * The created graph is empty, i.e. it has no edges. O(n).
-     *
-     * @param nodes - an array of node objects
-     */
-    public Graph(Node[] nodes) {
-        this.numNodes = nodes.length;
-        this.numEdges = 0;
+            this.keys[hole] = 0;
+            this.size--;
+        }
 
-        this.nodes = new NodeHashTable(this.numNodes);
+        /**
+         * Replaces table by a table of double size and reinserts every entry. O(size).
+         *
+         * @throws IllegalStateException if the table is at its maximum size.
+         */
+        private void grow() {
+            if (this.keys.length == 1 << MAX_BITS) {
+                throw new IllegalStateException("too many edges");
+            }
 
-        Neighborhood[] neighborhoods = new Neighborhood[this.numNodes];
+            long[] oldKeys = this.keys;
+            int[] oldEdges = this.edges;
+            int slot;
 
-        for (int i = 0; i < nodes.length; i++) {
-            // insert node into hash table
-            this.nodes.insert(nodes[i]);
+            this.keys = new long[2 * oldKeys.length];
+            this.edges = new int[this.keys.length];
+            this.shift--;
 
-            // insert node neighbor into array and update its index
-            neighborhoods[i] = nodes[i].neighborhood;
-            neighborhoods[i].heapIndex = i;
-        }
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    slot = this.getSlot(oldKeys[i]);
 
-        this.maxNeighborhoodHeap = new MaxNeighborhoodHeap(neighborhoods);
+                    this.keys[slot] = oldKeys[i];
+                    this.edges[slot] = oldEdges[i];
+                }
+            }
+        }
     }
 
-    /**
-     * This method returns the node in the graph with the maximum neighborhood weight, or null if graph is empty.
-     * O(1) - Expected.
-     *
-     * @return a Node object representing the correct node. If there is no node in the graph, returns 'null'.
-     */
-    public Node maxNeighborhoodWeight() {
-        return this.numNodes == 0 ? null : this.nodes.get(this.maxNeighborhoodHeap.getMaxNeighborhoodNodeId());
-    }
+    //NEIGHBORHOOD MAX HEAP---------------------------------------------------------------------------------------------
 
     /**
-     * Given a node id of a node in the graph, this method returns the neighborhood weight of that node,
-     * or null if no such node exists. O(1) - Expected.
-     *
-     * @param node_id - an id of a node.
-     * @return the neighborhood weight of the node of id 'node_id' if such a node exists in the graph.
-     * Otherwise, the function returns -1.
+     * This class represents a max d-ary heap of node neighborhoods. Heap order determined by neighborhood weight.
+     * <p>
+     * The heap is stored as parallel primitive arrays rather than as an array of objects: for every heap position,
+     * the neighborhood weight and the slot of its node. Every node in the heap owns a slot, a small integer that does
+     * not change while the node is in the heap, and for every slot the heap keeps the node and its heap position.
+     * Comparisons therefore read the weights array directly and a heap level spans few cache lines.
      */
-    public int getNeighborhoodWeight(int node_id) {
-        Node node = this.nodes.get(node_id);
+    private class MaxNeighborhoodHeap {
+        /**
+         * Functions in this class assume that heap is not empty (size>0) and slots given are of nodes in the heap.
+         */
 
-        return node == null ? -1 : node.neighborhood.weight;
-    }
+        private int arity;
 
-    /**
-     * Given a node of a node in the graph, this method changes the neighborhood weight of that node by delta.
-     * O(log n).
-     *
-     * @param node - node in graph.
-     */
-    private void changeNeighborhoodWeight(Node node, int delta) {
-        this.maxNeighborhoodHeap.changeKey(node.neighborhood.heapIndex, delta);
-    }
+        // by heap position
+        private long[] weights;
+        private int[] slots;
+        private int size;
 
-    /**
-     * This function adds an edge between the two nodes whose ids are specified.
-     * If one of these nodes is not in the graph, the function does nothing.
-     * The two nodes must be distinct; otherwise, the function does nothing.
-     * Returns true if edge added, otherwise returns false. O(log n).
-     *
-     * @param node1_id - the id of the first node.
-     * @param node2_id - the id of the second node.
-     * @return returns 'true' if the function added an edge, otherwise returns 'false'.
-     */
-    public boolean addEdge(int node1_id, int node2_id) {
-        Node node1, node2;
+        // by slot
+        private Node[] nodes;
+        private int[] positions;
+        private int numSlots;
+        private int[] freeSlots;
+        private int numFreeSlots;
 
-        if (
-                node1_id == node2_id ||
-                        (node1 = this.nodes.get(node1_id)) == null ||
-                        (node2 = this.nodes.get(node2_id)) == null
-        ) {
-            return false;
-        } else {
-            Edge edge1to2 = new Edge(node2_id);
-            Edge edge2to1 = new Edge(node1_id);
+        // max heap of heap positions, used by getTopNodes
+        private int[] frontier;
 
-            // update reference to dll node of reciprocal edge
-            edge1to2.reciprocalEdge = node2.edges.insert(edge2to1);
-            edge2to1.reciprocalEdge = node1.edges.insert(edge1to2);
+        // changes deferred by batch operations until the next repair, by slot
+        private long[] pendingDeltas;
+        private int[] dirty;
+        private int numDirty;
+        private int[] deleted;
+        private int numDeleted;
 
-            // update neighborhood weight
-            this.changeNeighborhoodWeight(node1, node2.weight);
-            this.changeNeighborhoodWeight(node2, node1.weight);
+        /**
+         * Creates a new max d-ary heap of the neighborhoods of given nodes. If neighborhood weights are not given,
+         * the nodes have no edges and their weights are heapified. Otherwise, the given neighborhood weights are
+         * heapified, or the nodes are already in heap order of them and they are used as is. O(n).
+         *
+         * @param nodes   - array of node objects.
+         * @param weights - neighborhood weights of nodes in heap order, or null.
+         * @param heapify - whether to heapify the given neighborhood weights rather than use them as is.
+         * @param arity   - number of children of each heap position.
+         */
+        private MaxNeighborhoodHeap(Node[] nodes, long[] weights, boolean heapify, int arity) {
+            int capacity = Math.max(1, nodes.length);
 
-            // increment numEdges by 1
-            this.numEdges++;
+            this.arity = arity;
 
-            return true;
-        }
-    }
+            this.weights = new long[capacity];
+            this.slots = new int[capacity];
+            this.nodes = new Node[capacity];
+            this.positions = new int[capacity];
+            this.freeSlots = new int[0];
 
-    /**
-     * Given the id of a node in the graph, deletes the node of that id from the graph, if it exists.
-     * Returns true if node deleted, otherwise returns false. O((d+1) log n).
-     *
-     * @param node_id - the id of the node to delete.
-     * @return returns 'true' if the function deleted a node, otherwise returns 'false'
-     */
-    public boolean deleteNode(int node_id) {
-        Node node = this.nodes.get(node_id), neighbor;
+            this.frontier = new int[0];
+            this.pendingDeltas = new long[0];
+            this.dirty = new int[0];
+            this.deleted = new int[0];
 
-        if (node == null) {
-            return false;
-        } else {
-            for (Edge edge : node.edges) {
-                neighbor = this.nodes.get(edge.neighborNodeId);
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i].slot = i;
 
-                // delete reciprocal edges from all neighbors
-                neighbor.edges.delete(edge.reciprocalEdge);
+                this.weights[i] = weights == null ? nodes[i].getWeight() : weights[i];
+                this.slots[i] = i;
+                this.nodes[i] = nodes[i];
+                this.positions[i] = i;
+            }
 
-                // update neighbors weight
-                this.changeNeighborhoodWeight(neighbor, -node.getWeight());
+            this.size = nodes.length;
+            this.numSlots = nodes.length;
 
-                // decrease numEdges by 1
-                this.numEdges--;
+            if (weights == null || heapify) {
+                this.buildHeap();
             }
+        }
 
-            // delete node neighborhood from max heap
-            this.maxNeighborhoodHeap.delete(node.neighborhood.heapIndex);
+        /**
+         * Converts arrays to max d-ary heap using heapify down from the bottom up. O(n).
+         */
+        private void buildHeap() {
+            for (int i = (this.size - 2) / this.arity; i >= 0; i--) {
+                heapifyDown(i);
+            }
+        }
 
-            // delete node from hash table
-            this.nodes.delete(node_id);
+        /**
+         * Moves neighborhood into heap position, given its weight and slot. O(1).
+         *
+         * @param i      - heap position.
+         * @param weight - neighborhood weight.
+         * @param slot   - slot of node.
+         */
+        private void place(int i, long weight, int slot) {
+            this.weights[i] = weight;
+            this.slots[i] = slot;
+            this.positions[slot] = i;
+        }
 
-            // decrease numNodes by 1
-            this.numNodes--;
+        /**
+         * Heapify down neighborhood, given its heap position. O(d log_d n).
+         *
+         * @param i - heap position of neighborhood.
+         */
+        private void heapifyDown(int i) {
+            long weight = this.weights[i];
+            int slot = this.slots[i], max, child, lastChild, distance = 0;
 
-            return true;
-        }
-    }
+            while ((child = this.arity * i + 1) < this.size) {
+                max = child;
+                lastChild = Math.min(child + this.arity, this.size);
+
+                while (++child < lastChild) {
+                    if (this.weights[child] > this.weights[max]) {
+                        max = child;
+                    }
+                }
+
+                if (this.weights[max] <= weight) {
+                    break;
+                }
+
+                // move heaviest child up into the hole
+                this.place(i, this.weights[max], this.slots[max]);
+                i = max;
+                distance++;
+            }
+
+            this.place(i, weight, slot);
+
+            if (Graph.this.metrics != null) {
+                Graph.this.metrics.recordSift(distance);
+            }
+        }
+
+        /**
+         * Heapify up neighborhood, given its heap position. O(log_d n).
+         *
+         * @param i - heap position of neighborhood.
+         */
+        private void heapifyUp(int i) {
+            long weight = this.weights[i];
+            int slot = this.slots[i], parent, distance = 0;
+
+            while (i > 0 && this.weights[parent = (i - 1) / this.arity] < weight) {
+                // move parent down into the hole
+                this.place(i, this.weights[parent], this.slots[parent]);
+                i = parent;
+                distance++;
+            }
+
+            this.place(i, weight, slot);
+
+            if (Graph.this.metrics != null) {
+                Graph.this.metrics.recordSift(distance);
+            }
+        }
+
+        /**
+         * Changes weight of neighborhood by delta and heapifies, given slot of its node and change in weight,
+         * together with any decrease recorded lazily for it. O(d log_d n).
+         *
+         * @param slot  - slot of node.
+         * @param delta - change in weight.
+         */
+        private void changeKey(int slot, long delta) {
+            int i = this.positions[slot];
+
+            if (slot < this.pendingDeltas.length) {
+                delta += this.pendingDeltas[slot];
+                this.pendingDeltas[slot] = 0;
+            }
+
+            this.weights[i] += delta;
+
+            if (delta > 0) {
+                this.heapifyUp(i);
+            } else if (delta < 0) {
+                this.heapifyDown(i);
+            }
+        }
+
+        /**
+         * Returns neighborhood weight, given slot of its node, including any decrease recorded lazily for it. O(1).
+         *
+         * @param slot - slot of node.
+         * @return neighborhood weight.
+         */
+        private long getWeight(int slot) {
+            long weight = this.weights[this.positions[slot]];
+
+            return slot < this.pendingDeltas.length ? weight + this.pendingDeltas[slot] : weight;
+        }
+
+        /**
+         * Inserts neighborhood of node, given node and neighborhood weight, assigning a slot to node.
+         * Arrays double if full. O(log_d n) - Amortized.
+         *
+         * @param node   - node.
+         * @param weight - neighborhood weight.
+         */
+        private void insert(Node node, long weight) {
+            if (this.numFreeSlots > 0) {
+                node.slot = this.freeSlots[--this.numFreeSlots];
+            } else {
+                if (this.numSlots == this.nodes.length) {
+                    int capacity = 2 * this.nodes.length;
+
+                    this.weights = Arrays.copyOf(this.weights, capacity);
+                    this.slots = Arrays.copyOf(this.slots, capacity);
+                    this.nodes = Arrays.copyOf(this.nodes, capacity);
+                    this.positions = Arrays.copyOf(this.positions, capacity);
+                }
+
+                node.slot = this.numSlots++;
+            }
+
+            this.nodes[node.slot] = node;
+            this.place(this.size, weight, node.slot);
+
+            // increment size by 1
+            this.size++;
+
+            this.heapifyUp(this.size - 1);
+        }
+
+        /**
+         * Frees slot of deleted node, so that it may be assigned again. O(1) - Amortized.
+         *
+         * @param slot - slot of node.
+         */
+        private void freeSlot(int slot) {
+            if (this.numFreeSlots == this.freeSlots.length) {
+                this.freeSlots = Arrays.copyOf(this.freeSlots, Math.max(4, 2 * this.freeSlots.length));
+            }
+
+            this.nodes[slot] = null;
+            this.freeSlots[this.numFreeSlots++] = slot;
+
+            // a recorded change of a deleted neighborhood is dropped
+            if (slot < this.pendingDeltas.length) {
+                this.pendingDeltas[slot] = 0;
+            }
+        }
+
+        /**
+         * Deletes neighborhood, given slot of its node. O(d log_d n).
+         *
+         * @param slot - slot of node.
+         */
+        private void delete(int slot) {
+            int i = this.positions[slot];
+            long deletedW = this.weights[i], replacedW = this.weights[this.size - 1];
+
+            // decrement size by 1
+            this.size--;
+
+            // move last into the hole, and heapify as needed
+            if (i != this.size) {
+                this.place(i, replacedW, this.slots[this.size]);
+
+                if (replacedW > deletedW) {
+                    this.heapifyUp(i);
+                } else if (replacedW < deletedW) {
+                    this.heapifyDown(i);
+                }
+            }
+
+            this.freeSlot(slot);
+        }
+
+        /**
+         * Records a change in weight of neighborhood by delta, without heapifying, until the next repair.
+         * O(1) - Amortized.
+         *
+         * @param slot  - slot of node.
+         * @param delta - change in weight.
+         */
+        private void accumulate(int slot, long delta) {
+            if (delta == 0) {
+                return;
+            }
+
+            if (this.pendingDeltas.length < this.nodes.length) {
+                this.pendingDeltas = Arrays.copyOf(this.pendingDeltas, this.nodes.length);
+            }
+
+            if (this.pendingDeltas[slot] == 0) {
+                if (this.numDirty == this.dirty.length) {
+                    this.dirty = Arrays.copyOf(this.dirty, Math.max(4, 2 * this.dirty.length));
+                }
+
+                this.dirty[this.numDirty++] = slot;
+            }
+
+            this.pendingDeltas[slot] += delta;
+        }
+
+        /**
+         * Records a decrease in weight of neighborhood by delta, without heapifying. Between operations of the graph
+         * only decreases are recorded, so the weight in the heap of every neighborhood is at least its true weight,
+         * and a neighborhood is only heapified when it reaches the root, when its key is changed or at the next
+         * repair. Repairs once as many neighborhoods are recorded as are in the heap. O(1) - Amortized.
+         *
+         * @param slot  - slot of node.
+         * @param delta - change in weight, negative.
+         */
+        private void decreaseLazily(int slot, long delta) {
+            this.accumulate(slot, delta);
+
+            if (this.numDirty >= this.size) {
+                this.repair();
+            }
+        }
+
+        /**
+         * Heapifies down the root while it has a decrease recorded lazily, so that it is the true max.
+         * O(r d log_d n) for r neighborhoods heapified.
+         */
+        private void settleRoot() {
+            int slot;
+
+            while (this.numDirty > 0 && (slot = this.slots[0]) < this.pendingDeltas.length &&
+                    this.pendingDeltas[slot] != 0) {
+                this.changeKey(slot, 0);
+            }
+        }
+
+        /**
+         * Records deletion of neighborhood, without removing it, until the next repair. O(1) - Amortized.
+         *
+         * @param slot - slot of node.
+         */
+        private void markDeleted(int slot) {
+            if (this.numDeleted == this.deleted.length) {
+                this.deleted = Arrays.copyOf(this.deleted, Math.max(4, 2 * this.deleted.length));
+            }
+
+            this.deleted[this.numDeleted++] = slot;
+        }
+
+        /**
+         * Applies all changes recorded since the last repair. If they are many relative to the size of the heap,
+         * applies them in place and rebuilds the heap from the bottom up, otherwise changes keys and deletes one by
+         * one. O(min(n, c log n)) for c recorded changes.
+         */
+        private void repair() {
+            int changes = this.numDirty + this.numDeleted, i, j, slot;
+            long delta;
+
+            if (changes == 0) {
+                return;
+            }
+
+            if ((long) changes * (32 - Integer.numberOfLeadingZeros(this.size)) >= this.size) {
+                // apply deltas in place
+                for (i = 0; i < this.numDirty; i++) {
+                    slot = this.dirty[i];
+
+                    this.weights[this.positions[slot]] += this.pendingDeltas[slot];
+                    this.pendingDeltas[slot] = 0;
+                }
+
+                // mark deleted neighborhoods and compact arrays
+                for (i = 0; i < this.numDeleted; i++) {
+                    this.positions[this.deleted[i]] = -1;
+                }
+
+                for (i = 0, j = 0; i < this.size; i++) {
+                    if (this.positions[this.slots[i]] != -1) {
+                        this.place(j++, this.weights[i], this.slots[i]);
+                    }
+                }
+
+                this.size = j;
+
+                for (i = 0; i < this.numDeleted; i++) {
+                    this.freeSlot(this.deleted[i]);
+                }
+
+                this.buildHeap();
+            } else {
+                for (i = 0; i < this.numDirty; i++) {
+                    slot = this.dirty[i];
+                    delta = this.pendingDeltas[slot];
+                    this.pendingDeltas[slot] = 0;
+
+                    this.changeKey(slot, delta);
+                }
+
+                for (i = 0; i < this.numDeleted; i++) {
+                    this.delete(this.deleted[i]);
+                }
+            }
+
+            this.numDirty = 0;
+            this.numDeleted = 0;
+        }
+
+        /**
+         * Fills array with the nodes of the heaviest neighborhoods, from heaviest to lightest, one per array cell.
+         * Array must not be longer than heap. Walks the heap from the root while keeping the unvisited children of
+         * visited positions in a frontier max heap, so only O(dk) positions are ever looked at. O(dk log k).
+         *
+         * @param nodes - array of length k to fill.
+         */
+        private void getTopNodes(Node[] nodes) {
+            int k = nodes.length, frontierSize = 0, i, child, lastChild;
+
+            if (k == 0) {
+                return;
+            }
+
+            // frontier holds at most d-1 more positions than the number of nodes taken, and at most every position
+            int capacity = (int) Math.min((long) k * this.arity + 1, this.size);
+
+            if (this.frontier.length < capacity) {
+                this.frontier = new int[capacity];
+            }
+
+            this.frontier[frontierSize++] = 0;
+
+            for (int taken = 0; taken < k; taken++) {
+                // pop heaviest position of frontier
+                i = this.frontier[0];
+                this.frontier[0] = this.frontier[--frontierSize];
+                this.frontierHeapifyDown(frontierSize);
+
+                nodes[taken] = this.nodes[this.slots[i]];
+
+                // push children of popped position
+                for (child = this.arity * i + 1, lastChild = Math.min(child + this.arity, this.size);
+                     child < lastChild; child++) {
+                    this.frontier[frontierSize] = child;
+                    this.frontierHeapifyUp(frontierSize++);
+                }
+            }
+        }
+
+        /**
+         * Heapify down root of frontier, given frontier size. O(log k).
+         *
+         * @param frontierSize - size of frontier.
+         */
+        private void frontierHeapifyDown(int frontierSize) {
+            int i = 0, max, tmp;
+
+            while (true) {
+                max = i;
+
+                if (2 * i + 1 < frontierSize &&
+                        this.weights[this.frontier[2 * i + 1]] > this.weights[this.frontier[max]]) {
+                    max = 2 * i + 1;
+                }
+
+                if (2 * i + 2 < frontierSize &&
+                        this.weights[this.frontier[2 * i + 2]] > this.weights[this.frontier[max]]) {
+                    max = 2 * i + 2;
+                }
+
+                if (max == i) {
+                    return;
+                }
+
+                tmp = this.frontier[i];
+                this.frontier[i] = this.frontier[max];
+                this.frontier[max] = tmp;
+                i = max;
+            }
+        }
+
+        /**
+         * Returns the slots of all neighborhoods, from heaviest to lightest. The heap positions are sorted by weight in
+         * the returned array itself, as a binary min heap whose minimum is repeatedly swapped to the end, so neither
+         * the heap nor the frontier grows. Weights must be repaired. O(n log n).
+         *
+         * @return slots by decreasing neighborhood weight.
+         */
+        private int[] getRankedSlots() {
+            int[] ranked = new int[this.size];
+            int tmp;
+
+            for (int i = 0; i < ranked.length; i++) {
+                ranked[i] = i;
+            }
+
+            for (int i = ranked.length / 2 - 1; i >= 0; i--) {
+                this.rankHeapifyDown(ranked, i, ranked.length);
+            }
+
+            for (int end = ranked.length - 1; end > 0; end--) {
+                tmp = ranked[0];
+                ranked[0] = ranked[end];
+                ranked[end] = tmp;
+                this.rankHeapifyDown(ranked, 0, end);
+            }
+
+            for (int i = 0; i < ranked.length; i++) {
+                ranked[i] = this.slots[ranked[i]];
+            }
+
+            return ranked;
+        }
+
+        /**
+         * Heapify down index of a binary min heap of positions by weight, given its size. O(log n).
+         *
+         * @param ranked - min heap of positions.
+         * @param i      - index in min heap.
+         * @param size   - size of min heap.
+         */
+        private void rankHeapifyDown(int[] ranked, int i, int size) {
+            int min, tmp;
+
+            while (true) {
+                min = i;
+
+                if (2 * i + 1 < size && this.weights[ranked[2 * i + 1]] < this.weights[ranked[min]]) {
+                    min = 2 * i + 1;
+                }
+
+                if (2 * i + 2 < size && this.weights[ranked[2 * i + 2]] < this.weights[ranked[min]]) {
+                    min = 2 * i + 2;
+                }
+
+                if (min == i) {
+                    return;
+                }
+
+                tmp = ranked[i];
+                ranked[i] = ranked[min];
+                ranked[min] = tmp;
+                i = min;
+            }
+        }
+
+        /**
+         * Heapify up position of frontier, given its index in frontier. O(log k).
+         *
+         * @param i - index in frontier.
+         */
+        private void frontierHeapifyUp(int i) {
+            int tmp;
+
+            while (i > 0 && this.weights[this.frontier[i]] > this.weights[this.frontier[(i - 1) / 2]]) {
+                tmp = this.frontier[i];
+                this.frontier[i] = this.frontier[(i - 1) / 2];
+                this.frontier[(i - 1) / 2] = tmp;
+                i = (i - 1) / 2;
+            }
+        }
+
+        /**
+         * Returns node of max neighborhood weight. O(1), or amortized over lazily recorded decreases.
+         *
+         * @return node of max neighborhood weight.
+         */
+        private Node getMaxNode() {
+            this.settleRoot();
+
+            return this.nodes[this.slots[0]];
+        }
+
+        /**
+         * Returns max neighborhood weight. O(1), or amortized over lazily recorded decreases.
+         *
+         * @return max neighborhood weight.
+         */
+        private long getMaxWeight() {
+            this.settleRoot();
+
+            return this.weights[0];
+        }
+    }
+
+    //PARALLEL RANGE----------------------------------------------------------------------------------------------------
+
+    private static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle NODES = MethodHandles.arrayElementVarHandle(Node[].class);
+
+    /**
+     * This interface represents an action applied to a range of indices.
+     */
+    private interface RangeAction {
+        /**
+         * Applies action to indices from..to-1.
+         *
+         * @param from - first index.
+         * @param to   - last index, exclusive.
+         */
+        void apply(int from, int to);
+    }
+
+    /**
+     * This class represents a fork-join task that applies an action to a range of indices, splitting the range in
+     * halves until it is at most PARALLEL_THRESHOLD long.
+     */
+    private static class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final RangeAction action;
+
+        /**
+         * Creates a new task object, given its range and action. O(1).
+         *
+         * @param from   - first index.
+         * @param to     - last index, exclusive.
+         * @param action - action.
+         */
+        private RangeTask(int from, int to, RangeAction action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= PARALLEL_THRESHOLD) {
+                this.action.apply(this.from, this.to);
+            } else {
+                int middle = (this.from + this.to) >>> 1;
+
+                invokeAll(new RangeTask(this.from, middle, this.action), new RangeTask(middle, this.to, this.action));
+            }
+        }
+    }
+
+    /**
+     * Returns whether parallelFor applies an action to n indices in parallel. O(1).
+     *
+     * @param n - number of indices.
+     * @return 'true' if the range is split among several threads, otherwise 'false'.
+     */
+    private static boolean isParallel(int n) {
+        return n > PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    /**
+     * Applies action to indices 0..n-1 in parallel, in the common fork-join pool, and waits until it is done.
+     * Small ranges, or any range if the pool has a single thread, are applied by the calling thread.
+     *
+     * @param n      - number of indices.
+     * @param action - action.
+     */
+    private static void parallelFor(int n, RangeAction action) {
+        if (Graph.isParallel(n)) {
+            ForkJoinPool.commonPool().invoke(new RangeTask(0, n, action));
+        } else if (n > 0) {
+            action.apply(0, n);
+        }
+    }
+
+    //GRAPH-------------------------------------------------------------------------------------------------------------
+    /**
+     * Functions in this class assume that user will not cause insertion of duplicated.
+     */
+
+    private int numNodes;
+    private int numEdges;
+
+    private NodeHashTable nodes;
+    private EdgePool edges;
+    private EdgeHashTable edgeTable;
+    private MaxNeighborhoodHeap maxNeighborhoodHeap;
+
+    private boolean lazyRepair;
+    private boolean publishing;
+    private volatile MaxNeighborhood publishedMaxNeighborhood;
+
+    private OperationLog operationLog;
+    private GraphMetrics metrics;
+
+    // subscribed event streams, and the max neighborhood last emitted to them, unless max events are emitted by a
+    // ConcurrentGraph this graph is a stripe of
+    private NeighborhoodEventStream[] eventStreams = new NeighborhoodEventStream[0];
+    private boolean emittingMax = true;
+    private Node eventMaxNode;
+    private long eventMaxWeight = -1;
+
+    // neighborhood weights before the current batch operation of the slots it changed, while streams are subscribed;
+    // a slot is listed if its stamp is the batch stamp, or its negation if the batch deleted it
+    private int[] batchStamps = new int[0];
+    private int batchStamp = 1;
+    private int[] batchSlots = new int[0];
+    private long[] batchWeights = new long[0];
+    private int numBatchSlots;
+
+    /**
+     * Initializes the graph on a given set of nodes,
+     * by creating a hash table of nodes and a max 4-ary heap of their neighborhoods.
+     * The created graph is empty, i.e. it has no edges. O(n).
+     *
+     * @param nodes - an array of node objects
+     */
+    public Graph(Node[] nodes) {
+        this(nodes, DEFAULT_HEAP_ARITY);
+    }
+
+    /**
+     * Initializes the graph on a given set of nodes,
+     * by creating a hash table of nodes and a max d-ary heap of their neighborhoods, given d.
+     * A larger d makes the heap shallower, so heapify up is faster and heapify down reads more children per level.
+     * The created graph is empty, i.e. it has no edges. O(n).
+     *
+     * @param nodes     - an array of node objects
+     * @param heapArity - number of children of each position in the heap, at least 2.
+     * @throws IllegalArgumentException if heapArity is less than 2.
+     */
+    public Graph(Node[] nodes, int heapArity) {
+        this(nodes, null, heapArity);
+    }
+
+    /**
+     * Initializes the graph on a given set of nodes with no edges, or on a set of nodes already in heap order of
+     * given neighborhood weights, to which edges are then added without changing neighborhood weights. O(n).
+     *
+     * @param nodes               - an array of node objects
+     * @param neighborhoodWeights - neighborhood weights of nodes in heap order, or null.
+     * @param heapArity           - number of children of each position in the heap, at least 2.
+     * @throws IllegalArgumentException if heapArity is less than 2.
+     */
+    private Graph(Node[] nodes, long[] neighborhoodWeights, int heapArity) {
+        if (heapArity < 2) {
+            throw new IllegalArgumentException("heap arity must be at least 2");
+        }
+
+        this.numNodes = nodes.length;
+        this.numEdges = 0;
+
+        this.nodes = new NodeHashTable(this.numNodes);
+        this.edges = new EdgePool(2 * this.numNodes);
+        this.edgeTable = new EdgeHashTable(this.numNodes);
+
+        for (Node node : nodes) {
+            // insert node into hash table
+            node.firstEdge = EdgePool.NIL;
+            this.nodes.insert(node);
+        }
+
+        this.maxNeighborhoodHeap = new MaxNeighborhoodHeap(nodes, neighborhoodWeights, false, heapArity);
+    }
+
+    /**
+     * Adds edge to start of edge list of node of given slot, possibly concurrently with other calls of this method.
+     * If so, the edge is published by an atomic swap of the first edge, so every first edge is replaced, and linked
+     * back, by exactly one call. O(1).
+     *
+     * @param pool       - edge pool.
+     * @param firstEdges - first edges of nodes, by slot.
+     * @param slot       - slot of node.
+     * @param edge       - edge.
+     * @param concurrent - whether other calls may run concurrently.
+     */
+    private static void push(EdgePool pool, int[] firstEdges, int slot, int edge, boolean concurrent) {
+        int next;
+
+        pool.prev[edge] = EdgePool.NIL;
+
+        if (concurrent) {
+            next = (int) INTS.getAndSet(firstEdges, slot, edge);
+        } else {
+            next = firstEdges[slot];
+            firstEdges[slot] = edge;
+        }
+
+        pool.next[edge] = next;
+
+        if (next != EdgePool.NIL) {
+            pool.prev[next] = edge;
+        }
+    }
+
+    /**
+     * Adds delta to neighborhood weight of given slot, possibly concurrently with other calls of this method, in
+     * which case it is added atomically. O(1).
+     *
+     * @param neighborhoodWeights - neighborhood weights, by slot.
+     * @param slot                - slot of node.
+     * @param delta               - delta.
+     * @param concurrent          - whether other calls may run concurrently.
+     */
+    private static void add(long[] neighborhoodWeights, int slot, long delta, boolean concurrent) {
+        if (concurrent) {
+            LONGS.getAndAdd(neighborhoodWeights, slot, delta);
+        } else {
+            neighborhoodWeights[slot] += delta;
+        }
+    }
+
+    /**
+     * Initializes an empty graph, with no nodes and no edges. Nodes may be added later using addNode. O(1).
+     */
+    public Graph() {
+        this(new Node[0]);
+    }
+
+    /**
+     * Initializes the graph on a given set of nodes and the edges between each pair of nodes whose ids are given at
+     * the same index of the two arrays, skipping pairs that addEdge would not add.
+     * The graph is built in parallel in the common fork-join pool, see Graph(Node[], int[], int[], int). O(n + m).
+     *
+     * @param nodes     - an array of node objects
+     * @param node1_ids - the ids of the first nodes.
+     * @param node2_ids - the ids of the second nodes.
+     * @throws IllegalArgumentException if the arrays are not of the same length.
+     */
+    public Graph(Node[] nodes, int[] node1_ids, int[] node2_ids) {
+        this(nodes, node1_ids, node2_ids, DEFAULT_HEAP_ARITY);
+    }
+
+    /**
+     * Initializes the graph on a given set of nodes and the edges between each pair of nodes whose ids are given at
+     * the same index of the two arrays, skipping pairs that addEdge would not add, with a max d-ary heap, given d.
+     * <p>
+     * The graph is built in parallel in the common fork-join pool: nodes are inserted into the hash table, edges are
+     * resolved to nodes and counted per node, the edges of every node are grouped and linked, and every neighborhood
+     * weight is summed by a single task. The heap is then built bottom up once from the final weights, so no edge
+     * changes a key. O(n + m), O((n + m) / p + n) on p cores - Expected.
+     *
+     * @param nodes     - an array of node objects
+     * @param node1_ids - the ids of the first nodes.
+     * @param node2_ids - the ids of the second nodes.
+     * @param heapArity - number of children of each position in the heap, at least 2.
+     * @throws IllegalArgumentException if the arrays are not of the same length, or heapArity is less than 2.
+     */
+    public Graph(Node[] nodes, int[] node1_ids, int[] node2_ids, int heapArity) {
+        if (node1_ids.length != node2_ids.length) {
+            throw new IllegalArgumentException("node id arrays must be of the same length");
+        }
+
+        if (heapArity < 2) {
+            throw new IllegalArgumentException("heap arity must be at least 2");
+        }
+
+        int n = nodes.length, m = node1_ids.length;
+
+        // first edges and neighborhood weights of nodes by slot
+        int[] firstEdges = new int[n];
+        long[] neighborhoodWeights = new long[n];
+
+        // next of the first edge of a skipped pair, never next of a linked edge
+        int skipped = EdgePool.NIL - 1;
+
+        NodeHashTable table = new NodeHashTable(n);
+        EdgePool pool = new EdgePool(2 * m);
+        EdgeHashTable edgeTable = new EdgeHashTable(m);
+
+        // insert nodes into hash table, slot of node is its index
+        Graph.parallelFor(n, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                nodes[i].slot = i;
+                firstEdges[i] = EdgePool.NIL;
+                neighborhoodWeights[i] = nodes[i].getWeight();
+                table.putConcurrently(nodes[i]);
+            }
+        });
+
+        table.setSize(n);
+
+        // resolve pairs to nodes, and push edge 2k to the first node of pair k and edge 2k+1 to the second.
+        // atomics are only needed if the pairs are split among several threads
+        boolean concurrent = Graph.isParallel(m);
+
+        Graph.parallelFor(m, (from, to) -> {
+            Node node1, node2;
+
+            for (int k = from; k < to; k++) {
+                if (
+                        node1_ids[k] != node2_ids[k] &&
+                                (node1 = table.get(node1_ids[k])) != null &&
+                                (node2 = table.get(node2_ids[k])) != null &&
+                                edgeTable.insertConcurrently(node1_ids[k], node2_ids[k], 2 * k)
+                ) {
+                    pool.neighborNodeIds[2 * k] = node2.getId();
+                    pool.neighborNodeIds[2 * k + 1] = node1.getId();
+
+                    Graph.push(pool, firstEdges, node1.slot, 2 * k, concurrent);
+                    Graph.push(pool, firstEdges, node2.slot, 2 * k + 1, concurrent);
+
+                    Graph.add(neighborhoodWeights, node1.slot, node2.getWeight(), concurrent);
+                    Graph.add(neighborhoodWeights, node2.slot, node1.getWeight(), concurrent);
+                } else {
+                    pool.next[2 * k] = skipped;
+                }
+            }
+        });
+
+        // set first edges of nodes
+        Graph.parallelFor(n, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                nodes[i].firstEdge = firstEdges[i];
+            }
+        });
+
+        // edges of skipped pairs are freed
+        pool.used = 2 * m;
+
+        this.numNodes = n;
+        this.numEdges = m;
+
+        for (int k = m - 1; k >= 0; k--) {
+            if (pool.next[2 * k] == skipped) {
+                pool.freePair(2 * k);
+                this.numEdges--;
+            }
+        }
+
+        edgeTable.size = this.numEdges;
+
+        this.nodes = table;
+        this.edges = pool;
+        this.edgeTable = edgeTable;
+        this.maxNeighborhoodHeap = new MaxNeighborhoodHeap(nodes, neighborhoodWeights, true, heapArity);
+    }
+
+    /**
+     * This method returns the node in the graph with the maximum neighborhood weight, or null if graph is empty.
+     * O(1).
+     *
+     * @return a Node object representing the correct node. If there is no node in the graph, returns 'null'.
+     */
+    @Override
+    public Node maxNeighborhoodWeight() {
+        return this.numNodes == 0 ? null : this.maxNeighborhoodHeap.getMaxNode();
+    }
+
+    /**
+     * Given a node id of a node in the graph, this method returns the neighborhood weight of that node,
+     * or null if no such node exists. O(1) - Expected.
+     *
+     * @param node_id - an id of a node.
+     * @return the neighborhood weight of the node of id 'node_id' if such a node exists in the graph.
+     * Otherwise, the function returns -1.
+     * @throws ArithmeticException if the neighborhood weight does not fit in an int,
+     *                             use getNeighborhoodWeightLong for such weights.
+     */
+    @Override
+    public int getNeighborhoodWeight(int node_id) {
+        Node node = this.nodes.get(node_id);
+
+        return node == null ? -1 : Math.toIntExact(this.maxNeighborhoodHeap.getWeight(node.slot));
+    }
+
+    /**
+     * Given a node id of a node in the graph, this method returns the neighborhood weight of that node as a long,
+     * so that it is exact even if the sum of the node weights overflows an int. O(1) - Expected.
+     *
+     * @param node_id - an id of a node.
+     * @return the neighborhood weight of the node of id 'node_id' if such a node exists in the graph.
+     * Otherwise, the function returns -1.
+     */
+    @Override
+    public long getNeighborhoodWeightLong(int node_id) {
+        Node node = this.nodes.get(node_id);
+
+        return node == null ? -1 : this.maxNeighborhoodHeap.getWeight(node.slot);
+    }
+
+    /**
+     * This method returns the k nodes in the graph with the maximum neighborhood weights, from heaviest to lightest,
+     * or all nodes of the graph if there are less than k. The graph is not changed.
+     * O(k log k) - Expected, after applying decreases recorded by lazy repair.
+     *
+     * @param k - number of nodes to return.
+     * @return an array of the nodes with the k maximum neighborhood weights.
+     */
+    @Override
+    public Node[] topK(int k) {
+        Node[] nodes = new Node[Math.max(0, Math.min(k, this.numNodes))];
+
+        // the walk reads weights of positions below the root, apply lazily recorded decreases
+        this.maxNeighborhoodHeap.repair();
+
+        this.maxNeighborhoodHeap.getTopNodes(nodes);
+
+        return nodes;
+    }
+
+    /**
+     * Enables or disables lazy repair of the heap. While enabled, decreases of neighborhood weights, such as those of
+     * the neighbors of a deleted node, are recorded in O(1) instead of heapified, and a neighborhood is only heapified
+     * when it reaches the root of the heap, when it is changed again, or once as many neighborhoods are recorded as
+     * are in the graph. Deleting a node of degree d then costs O(d + log n) - Amortized, and the cost of a decrease is
+     * only paid by maxNeighborhoodWeight if the neighborhood would otherwise be the max. Disabling applies all
+     * recorded decreases. O(1), or O(min(n, c log n)) for c recorded decreases when disabling.
+     *
+     * @param lazyRepair - whether to repair the heap lazily.
+     */
+    public void setLazyRepair(boolean lazyRepair) {
+        this.lazyRepair = lazyRepair;
+
+        if (!lazyRepair) {
+            this.maxNeighborhoodHeap.repair();
+        }
+    }
+
+    /**
+     * Enables or disables publishing of the max neighborhood. While enabled, every mutation of the graph publishes
+     * the node with the maximum neighborhood weight and that weight, so that they may be read by other threads
+     * using getPublishedMaxNeighborhood without any synchronization with the writer. O(1) - Expected.
+     *
+     * @param publishing - whether to publish the max neighborhood.
+     */
+    public void setPublishing(boolean publishing) {
+        this.publishing = publishing;
+
+        if (publishing) {
+            this.publishMaxNeighborhood();
+        } else {
+            this.publishedMaxNeighborhood = null;
+        }
+    }
+
+    /**
+     * This method returns the max neighborhood published after the last completed mutation, or null if the graph was
+     * empty then or publishing is disabled. Unlike other methods of the graph, it may be called by any thread while
+     * another thread mutates the graph. Wait-free, O(1).
+     *
+     * @return the published max neighborhood, or null.
+     */
+    public MaxNeighborhood getPublishedMaxNeighborhood() {
+        return this.publishedMaxNeighborhood;
+    }
+
+    /**
+     * Publishes the current max neighborhood, if publishing is enabled and it changed since last published, and emits
+     * a MAX_CHANGED event to all subscribed streams if it changed since last emitted. O(1) per stream.
+     */
+    private void publishMaxNeighborhood() {
+        if (!this.publishing && this.eventStreams.length == 0) {
+            return;
+        }
+
+        Node node = null;
+        long weight = -1;
+
+        if (this.numNodes != 0) {
+            node = this.maxNeighborhoodHeap.getMaxNode();
+            weight = this.maxNeighborhoodHeap.getMaxWeight();
+        }
+
+        if (this.publishing) {
+            MaxNeighborhood published = this.publishedMaxNeighborhood;
+
+            if (node == null) {
+                if (published != null) {
+                    this.publishedMaxNeighborhood = null;
+                }
+            } else if (published == null || published.node != node || published.weight != weight) {
+                this.publishedMaxNeighborhood = new MaxNeighborhood(node, weight);
+            }
+        }
+
+        if (!this.emittingMax) {
+            return;
+        }
+
+        if (node != this.eventMaxNode || weight != this.eventMaxWeight) {
+            this.eventMaxNode = node;
+            this.eventMaxWeight = weight;
+
+            for (NeighborhoodEventStream stream : this.eventStreams) {
+                stream.emitMax(node == null ? 0 : node.getId(), weight);
+            }
+        } else {
+            // a max held aside by a full stream is written once the consumer made room
+            for (NeighborhoodEventStream stream : this.eventStreams) {
+                stream.flushMax();
+            }
+        }
+    }
+
+    /**
+     * Subscribes a new event stream of given threshold and capacity to the graph. The stream starts with an
+     * ABOVE_THRESHOLD event for every node whose neighborhood weight is at least the threshold, as far as there is
+     * room, followed by a MAX_CHANGED event for the current max. Its events are then emitted by the thread mutating
+     * the graph, and may be drained by one other thread while it does. A batch operation emits the events of a node
+     * once, from its neighborhood weight before the batch to its weight after it. O(n + capacity).
+     *
+     * @param threshold - threshold of neighborhood weights.
+     * @param capacity  - maximum number of unread events, rounded up to a power of two.
+     * @return the subscribed event stream.
+     * @throws IllegalArgumentException if capacity is less than 1 or more than 2^30.
+     */
+    public NeighborhoodEventStream subscribe(long threshold, int capacity) {
+        NeighborhoodEventStream stream = new NeighborhoodEventStream(threshold, capacity);
+
+        this.attach(stream);
+
+        return stream;
+    }
+
+    /**
+     * Subscribes an event stream to the graph, emitting an ABOVE_THRESHOLD event for every node whose neighborhood
+     * weight is at least the threshold, and a MAX_CHANGED event for the current max unless max events are disabled,
+     * see subscribe. O(n).
+     *
+     * @param stream - event stream.
+     */
+    void attach(NeighborhoodEventStream stream) {
+        MaxNeighborhoodHeap heap = this.maxNeighborhoodHeap;
+        NeighborhoodEventStream[] eventStreams = Arrays.copyOf(this.eventStreams, this.eventStreams.length + 1);
+        int slot;
+
+        for (int i = 0; i < heap.size; i++) {
+            slot = heap.slots[i];
+            stream.emitCrossing(heap.nodes[slot].getId(), Long.MIN_VALUE, heap.getWeight(slot));
+        }
+
+        // current max, which may have changed unemitted while no stream was subscribed
+        this.eventMaxNode = this.numNodes == 0 ? null : heap.getMaxNode();
+        this.eventMaxWeight = this.numNodes == 0 ? -1 : heap.getMaxWeight();
+
+        if (this.emittingMax) {
+            stream.emitMax(this.eventMaxNode == null ? 0 : this.eventMaxNode.getId(), this.eventMaxWeight);
+        }
+
+        eventStreams[eventStreams.length - 1] = stream;
+        this.eventStreams = eventStreams;
+    }
+
+    /**
+     * Enables or disables MAX_CHANGED events to the subscribed streams, for a graph that is a stripe of a
+     * ConcurrentGraph, which emits the max of all its stripes instead. Threshold events are emitted either way. O(1).
+     *
+     * @param emittingMax - whether to emit MAX_CHANGED events.
+     */
+    void setEmittingMax(boolean emittingMax) {
+        this.emittingMax = emittingMax;
+    }
+
+    /**
+     * Unsubscribes an event stream from the graph, if subscribed. No more events are emitted to it, while unread
+     * events may still be drained. O(s) for s subscribed streams.
+     *
+     * @param stream - event stream.
+     * @return 'true' if the stream was subscribed, otherwise 'false'.
+     */
+    public boolean unsubscribe(NeighborhoodEventStream stream) {
+        NeighborhoodEventStream[] eventStreams = this.eventStreams;
+
+        for (int i = 0; i < eventStreams.length; i++) {
+            if (eventStreams[i] == stream) {
+                NeighborhoodEventStream[] remaining = Arrays.copyOf(eventStreams, eventStreams.length - 1);
+
+                System.arraycopy(eventStreams, i + 1, remaining, i, remaining.length - i);
+                this.eventStreams = remaining;
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Emits threshold events of a change in the neighborhood weight of a node to all subscribed streams. A weight of
+     * Long.MIN_VALUE stands for a node not in the graph. O(1) per stream.
+     *
+     * @param node   - node.
+     * @param before - neighborhood weight before the change.
+     * @param after  - neighborhood weight after the change.
+     */
+    private void emitCrossing(Node node, long before, long after) {
+        for (NeighborhoodEventStream stream : this.eventStreams) {
+            stream.emitCrossing(node.getId(), before, after);
+        }
+    }
+
+    /**
+     * Attaches metrics to the graph, or detaches them if null. While attached, the latencies of addEdge and deleteNode,
+     * the probe lengths of node lookups and the distances of heap sifts are recorded into them; while detached, each
+     * costs a single null check. O(1).
+     *
+     * @param metrics - metrics, or null.
+     */
+    public void setMetrics(GraphMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Attaches an operation log to the graph, or detaches it if null. While attached, every mutation that changes the
+     * graph is logged, so that it can be replayed after a crash. A mutation is logged after it is applied, so a
+     * mutation that throws UncheckedIOException because logging failed has still changed the graph. O(1).
+     *
+     * @param operationLog - operation log, or null.
+     */
+    public void setOperationLog(OperationLog operationLog) {
+        this.operationLog = operationLog;
+    }
+
+    /**
+     * Given a node id, this method returns whether a node of that id exists in the graph. O(1) - Expected.
+     *
+     * @param node_id - an id of a node.
+     * @return 'true' if a node of id 'node_id' exists in the graph, otherwise 'false'.
+     */
+    @Override
+    public boolean containsNode(int node_id) {
+        return this.nodes.get(node_id) != null;
+    }
+
+    /**
+     * Given a node id, this method returns the node object of that id, or null if no such node exists.
+     * O(1) - Expected.
+     *
+     * @param node_id - an id of a node.
+     * @return the node of id 'node_id', or null.
+     */
+    Node getNode(int node_id) {
+        return this.nodes.get(node_id);
+    }
+
+    /**
+     * Given a node of a node in the graph, this method changes the neighborhood weight of that node by delta.
+     * O(log n), or O(1) - Amortized for a decrease with lazy repair.
+     *
+     * @param node  - node in graph.
+     * @param delta - change in neighborhood weight.
+     */
+    private void changeNeighborhoodWeight(Node node, long delta) {
+        if (this.eventStreams.length != 0) {
+            long before = this.maxNeighborhoodHeap.getWeight(node.slot);
+
+            this.emitCrossing(node, before, before + delta);
+        }
+
+        if (this.lazyRepair && delta < 0) {
+            this.maxNeighborhoodHeap.decreaseLazily(node.slot, delta);
+        } else {
+            this.maxNeighborhoodHeap.changeKey(node.slot, delta);
+        }
+    }
+
+    /**
+     * Given a node in the graph, this method records a change of delta in the neighborhood weight of that node, to be
+     * applied to the max heap by its next repair. O(1) - Amortized.
+     *
+     * @param node  - node in graph.
+     * @param delta - change in neighborhood weight.
+     */
+    private void accumulateNeighborhoodWeight(Node node, long delta) {
+        if (this.eventStreams.length != 0) {
+            this.recordBatchWeight(node);
+        }
+
+        this.maxNeighborhoodHeap.accumulate(node.slot, delta);
+    }
+
+    /**
+     * Given a node in the graph, this method records its neighborhood weight before the current batch operation, the
+     * first time the batch changes it, so that its threshold events are emitted once by repairBatch.
+     * O(1) - Amortized.
+     *
+     * @param node - node in graph.
+     */
+    private void recordBatchWeight(Node node) {
+        int slot = node.slot;
+
+        if (this.batchStamps.length <= slot) {
+            this.batchStamps = Arrays.copyOf(this.batchStamps,
+                    Math.max(slot + 1, this.maxNeighborhoodHeap.nodes.length));
+        }
+
+        if (Math.abs(this.batchStamps[slot]) != this.batchStamp) {
+            if (this.numBatchSlots == this.batchSlots.length) {
+                this.batchSlots = Arrays.copyOf(this.batchSlots, Math.max(4, 2 * this.numBatchSlots));
+                this.batchWeights = Arrays.copyOf(this.batchWeights, this.batchSlots.length);
+            }
+
+            this.batchStamps[slot] = this.batchStamp;
+            this.batchSlots[this.numBatchSlots] = slot;
+            this.batchWeights[this.numBatchSlots++] = this.maxNeighborhoodHeap.getWeight(slot);
+        }
+    }
+
+    /**
+     * This method ends a batch operation: it emits the threshold events of every node whose neighborhood weight the
+     * batch changed, from its weight before the batch to its weight after it, or to Long.MIN_VALUE if the batch
+     * deleted the node, and then repairs the max heap. O(min(n, c log n) + s) for c recorded changes of s nodes.
+     */
+    private void repairBatch() {
+        MaxNeighborhoodHeap heap = this.maxNeighborhoodHeap;
+        int slot;
+
+        for (int i = 0; i < this.numBatchSlots; i++) {
+            slot = this.batchSlots[i];
+
+            this.emitCrossing(heap.nodes[slot], this.batchWeights[i],
+                    this.batchStamps[slot] < 0 ? Long.MIN_VALUE : heap.getWeight(slot));
+        }
+
+        if (this.numBatchSlots != 0) {
+            this.numBatchSlots = 0;
+
+            // stamps of earlier batches must never match again
+            if (++this.batchStamp == Integer.MAX_VALUE) {
+                Arrays.fill(this.batchStamps, 0);
+                this.batchStamp = 1;
+            }
+        }
+
+        heap.repair();
+    }
+
+    /**
+     * This function adds an edge between the two nodes whose ids are specified.
+     * If one of these nodes is not in the graph, the function does nothing.
+     * The two nodes must be distinct; otherwise, the function does nothing.
+     * If the edge is already in the graph, the function does nothing.
+     * Returns true if edge added, otherwise returns false. O(log n).
+     *
+     * @param node1_id - the id of the first node.
+     * @param node2_id - the id of the second node.
+     * @return returns 'true' if the function added an edge, otherwise returns 'false'.
+     */
+    @Override
+    public boolean addEdge(int node1_id, int node2_id) {
+        if (this.metrics == null) {
+            return this.insertEdge(node1_id, node2_id);
+        }
+
+        long start = System.nanoTime();
+        boolean added = this.insertEdge(node1_id, node2_id);
+
+        this.metrics.recordAddEdge(System.nanoTime() - start);
+
+        return added;
+    }
+
+    /**
+     * Adds an edge between the two nodes whose ids are specified, see addEdge. O(log n).
+     *
+     * @param node1_id - the id of the first node.
+     * @param node2_id - the id of the second node.
+     * @return returns 'true' if the function added an edge, otherwise returns 'false'.
+     */
+    private boolean insertEdge(int node1_id, int node2_id) {
+        Node node1, node2;
+
+        if (
+                node1_id == node2_id ||
+                        (node1 = this.nodes.get(node1_id)) == null ||
+                        (node2 = this.nodes.get(node2_id)) == null ||
+                        this.edgeTable.get(node1_id, node2_id) != EdgePool.NIL
+        ) {
+            return false;
+        } else {
+            // add pair of reciprocal edges
+            this.edgeTable.insert(node1_id, node2_id, this.edges.insert(node1, node2));
+
+            // update neighborhood weight
+            this.changeNeighborhoodWeight(node1, node2.weight);
+            this.changeNeighborhoodWeight(node2, node1.weight);
+
+            // increment numEdges by 1
+            this.numEdges++;
+
+            if (this.operationLog != null) {
+                this.operationLog.logAddEdge(node1_id, node2_id);
+            }
+
+            this.publishMaxNeighborhood();
+
+            return true;
+        }
+    }
+
+    /**
+     * This function adds an edge between each pair of nodes whose ids are given at the same index of the two arrays,
+     * skipping pairs that addEdge would not add. The max heap is repaired once for the whole batch,
+     * so this is much faster than calling addEdge for each pair. O(min(n, k log n) + k) for k pairs - Expected.
+     *
+     * @param node1_ids - the ids of the first nodes.
+     * @param node2_ids - the ids of the second nodes.
+     * @return the number of edges added.
+     * @throws IllegalArgumentException if the arrays are not of the same length.
+     */
+    @Override
+    public int addEdges(int[] node1_ids, int[] node2_ids) {
+        if (node1_ids.length != node2_ids.length) {
+            throw new IllegalArgumentException("node id arrays must be of the same length");
+        }
+
+        return this.addEdges(node1_ids, node2_ids, node1_ids.length);
+    }
+
+    /**
+     * This function adds an edge between each pair of nodes whose ids are given at the same index of the first count
+     * cells of the two arrays, like addEdges, so that callers may reuse the same arrays for many batches.
+     * O(min(n, k log n) + k) for k = count - Expected.
+     *
+     * @param node1_ids - the ids of the first nodes.
+     * @param node2_ids - the ids of the second nodes.
+     * @param count     - the number of pairs.
+     * @return the number of edges added.
+     */
+    @Override
+    public int addEdges(int[] node1_ids, int[] node2_ids, int count) {
+        return this.addEdges(node1_ids, node2_ids, count, null);
+    }
+
+    /**
+     * This function adds an edge between each pair of nodes whose ids are given at the same index of the first count
+     * cells of the two arrays, like addEdges, and records for every pair whether its edge was added.
+     * O(min(n, k log n) + k) for k = count - Expected.
+     *
+     * @param node1_ids - the ids of the first nodes.
+     * @param node2_ids - the ids of the second nodes.
+     * @param count     - the number of pairs.
+     * @param results   - array to set to 'true' at the index of every pair whose edge was added and to 'false' at
+     *                  the others, or null.
+     * @return the number of edges added.
+     */
+    public int addEdges(int[] node1_ids, int[] node2_ids, int count, boolean[] results) {
+        Node node1, node2;
+        int added = 0;
+
+        for (int i = 0; i < count; i++) {
+            if (results != null) {
+                results[i] = false;
+            }
+
+            if (
+                    node1_ids[i] != node2_ids[i] &&
+                            (node1 = this.nodes.get(node1_ids[i])) != null &&
+                            (node2 = this.nodes.get(node2_ids[i])) != null &&
+                            this.edgeTable.get(node1_ids[i], node2_ids[i]) == EdgePool.NIL
+            ) {
+                // add pair of reciprocal edges
+                this.edgeTable.insert(node1_ids[i], node2_ids[i], this.edges.insert(node1, node2));
+
+                // record change in neighborhood weight
+                this.accumulateNeighborhoodWeight(node1, node2.weight);
+                this.accumulateNeighborhoodWeight(node2, node1.weight);
+
+                if (this.operationLog != null) {
+                    this.operationLog.logAddEdge(node1_ids[i], node2_ids[i]);
+                }
+
+                if (results != null) {
+                    results[i] = true;
+                }
+
+                added++;
+            }
+        }
+
+        this.repairBatch();
+
+        // increment numEdges by number of edges added
+        this.numEdges += added;
+
+        this.publishMaxNeighborhood();
+
+        return added;
+    }
+
+    /**
+     * This function adds a node with no edges to the graph.
+     * If a node with the same id is already in the graph, the function does nothing.
+     * Returns true if node added, otherwise returns false. O(log n) - Amortized.
+     *
+     * @param node - the node to add.
+     * @return returns 'true' if the function added a node, otherwise returns 'false'.
+     */
+    @Override
+    public boolean addNode(Node node) {
+        if (this.nodes.get(node.getId()) != null) {
+            return false;
+        } else {
+            // reset node in case it was previously deleted from a graph
+            node.firstEdge = EdgePool.NIL;
+
+            // insert node into hash table
+            this.nodes.insert(node);
+
+            // insert node neighborhood into max heap
+            this.maxNeighborhoodHeap.insert(node, node.getWeight());
+
+            if (this.eventStreams.length != 0) {
+                this.emitCrossing(node, Long.MIN_VALUE, node.getWeight());
+            }
+
+            // increment numNodes by 1
+            this.numNodes++;
+
+            if (this.operationLog != null) {
+                this.operationLog.logAddNode(node.getId(), node.getWeight());
+            }
+
+            this.publishMaxNeighborhood();
+
+            return true;
+        }
+    }
+
+    /**
+     * Given the id of a node in the graph, deletes the node of that id from the graph, if it exists.
+     * Returns true if node deleted, otherwise returns false. O((d+1) log n), or O(d + log n) - Amortized with lazy
+     * repair if the weight of the node is positive.
+     *
+     * @param node_id - the id of the node to delete.
+     * @return returns 'true' if the function deleted a node, otherwise returns 'false'
+     */
+    @Override
+    public boolean deleteNode(int node_id) {
+        if (this.metrics == null) {
+            return this.removeNode(node_id);
+        }
+
+        long start = System.nanoTime();
+        boolean deleted = this.removeNode(node_id);
+
+        this.metrics.recordDeleteNode(System.nanoTime() - start);
+
+        return deleted;
+    }
+
+    /**
+     * Deletes the node of the given id from the graph, if it exists, see deleteNode. O((d+1) log n).
+     *
+     * @param node_id - the id of the node to delete.
+     * @return returns 'true' if the function deleted a node, otherwise returns 'false'
+     */
+    private boolean removeNode(int node_id) {
+        Node node = this.nodes.get(node_id), neighbor;
+
+        if (node == null) {
+            return false;
+        } else {
+            for (int edge = node.firstEdge, nextEdge; edge != EdgePool.NIL; edge = nextEdge) {
+                nextEdge = this.edges.next[edge];
+                neighbor = this.nodes.get(this.edges.neighborNodeIds[edge]);
+
+                // delete reciprocal edges from all neighbors
+                this.edges.unlink(neighbor, edge ^ 1);
+                this.edges.freePair(edge);
+                this.edgeTable.delete(node_id, neighbor.getId());
+
+                // update neighbors weight
+                this.changeNeighborhoodWeight(neighbor, -node.getWeight());
+
+                // decrease numEdges by 1
+                this.numEdges--;
+            }
+
+            node.firstEdge = EdgePool.NIL;
+
+            if (this.eventStreams.length != 0) {
+                this.emitCrossing(node, this.maxNeighborhoodHeap.getWeight(node.slot), Long.MIN_VALUE);
+            }
+
+            // delete node neighborhood from max heap
+            this.maxNeighborhoodHeap.delete(node.slot);
+
+            // delete node from hash table
+            this.nodes.delete(node_id);
+
+            // decrease numNodes by 1
+            this.numNodes--;
+
+            if (this.operationLog != null) {
+                this.operationLog.logDeleteNode(node_id);
+            }
+
+            this.publishMaxNeighborhood();
+
+            return true;
+        }
+    }
+
+    /**
+     * Given the ids of two nodes in the graph, deletes the edge between them, if it exists.
+     * Returns true if edge deleted, otherwise returns false. O(log n) - Expected.
+     *
+     * @param node1_id - the id of the first node.
+     * @param node2_id - the id of the second node.
+     * @return returns 'true' if the function deleted an edge, otherwise returns 'false'.
+     */
+    @Override
+    public boolean deleteEdge(int node1_id, int node2_id) {
+        int edge = this.edgeTable.get(node1_id, node2_id);
+
+        if (edge == EdgePool.NIL) {
+            return false;
+        } else {
+            Node node1 = this.nodes.get(node1_id), node2 = this.nodes.get(node2_id);
+
+            // delete pair of reciprocal edges
+            this.edges.unlink(node1, edge);
+            this.edges.unlink(node2, edge ^ 1);
+            this.edges.freePair(edge);
+            this.edgeTable.delete(node1_id, node2_id);
+
+            // update neighborhood weight
+            this.changeNeighborhoodWeight(node1, -node2.weight);
+            this.changeNeighborhoodWeight(node2, -node1.weight);
+
+            // decrease numEdges by 1
+            this.numEdges--;
+
+            if (this.operationLog != null) {
+                this.operationLog.logDeleteEdge(node1_id, node2_id);
+            }
+
+            this.publishMaxNeighborhood();
+
+            return true;
+        }
+    }
+
+    /**
+     * Given the ids of two nodes, returns whether there is an edge between them in the graph. O(1) - Expected.
+     *
+     * @param node1_id - the id of the first node.
+     * @param node2_id - the id of the second node.
+     * @return 'true' if there is an edge between the nodes, otherwise 'false'.
+     */
+    @Override
+    public boolean hasEdge(int node1_id, int node2_id) {
+        return this.edgeTable.get(node1_id, node2_id) != EdgePool.NIL;
+    }
+
+    /**
+     * Given the id of a node in the graph, changes the weight of the node of that id, and so the neighborhood weights
+     * of the node and of all its neighbors. The node object is updated, nothing else changes.
+     * Returns true if node updated, otherwise returns false. O((d+1) log n) - Expected.
+     *
+     * @param node_id - the id of the node to update.
+     * @param weight  - the new weight of the node.
+     * @return returns 'true' if the function updated a node, otherwise returns 'false'.
+     */
+    @Override
+    public boolean updateNodeWeight(int node_id, int weight) {
+        Node node = this.nodes.get(node_id);
+
+        if (node == null) {
+            return false;
+        } else {
+            long delta = (long) weight - node.weight;
+
+            node.weight = weight;
+
+            if (delta != 0) {
+                // update neighborhood weight of node and of all its neighbors
+                this.changeNeighborhoodWeight(node, delta);
+
+                for (int edge = node.firstEdge; edge != EdgePool.NIL; edge = this.edges.next[edge]) {
+                    this.changeNeighborhoodWeight(this.nodes.get(this.edges.neighborNodeIds[edge]), delta);
+                }
+            }
+
+            if (this.operationLog != null) {
+                this.operationLog.logUpdateNodeWeight(node_id, weight);
+            }
+
+            this.publishMaxNeighborhood();
+
+            return true;
+        }
+    }
+
+    /**
+     * Given ids of nodes in the graph and their new weights at the same index of the two arrays, changes the weights
+     * of the nodes of those ids, skipping ids of nodes that do not exist. Changes to the neighborhood weight of a node
+     * that neighbors several updated nodes are summed, and the max heap is repaired once for the whole batch,
+     * so this is much faster than calling updateNodeWeight for each id.
+     * O(min(n, (k+d) log n) + k + d) for k ids of nodes of d neighbors in total - Expected.
+     *
+     * @param node_ids - the ids of the nodes to update.
+     * @param weights  - the new weights of the nodes.
+     * @return the number of nodes updated.
+     * @throws IllegalArgumentException if the arrays are not of the same length.
+     */
+    @Override
+    public int updateNodeWeights(int[] node_ids, int[] weights) {
+        if (node_ids.length != weights.length) {
+            throw new IllegalArgumentException("node id and weight arrays must be of the same length");
+        }
+
+        return this.updateNodeWeights(node_ids, weights, node_ids.length);
+    }
+
+    /**
+     * Given ids of nodes in the graph and their new weights at the same index of the first count cells of the two
+     * arrays, changes the weights of the nodes of those ids, like updateNodeWeights, so that callers may reuse the
+     * same arrays for many batches. O(min(n, (k+d) log n) + k + d) for k = count and d neighbors - Expected.
+     *
+     * @param node_ids - the ids of the nodes to update.
+     * @param weights  - the new weights of the nodes.
+     * @param count    - the number of ids.
+     * @return the number of nodes updated.
+     */
+    @Override
+    public int updateNodeWeights(int[] node_ids, int[] weights, int count) {
+        Node node;
+        long delta;
+        int updated = 0;
+
+        for (int i = 0; i < count; i++) {
+            if ((node = this.nodes.get(node_ids[i])) == null) {
+                continue;
+            }
+
+            delta = (long) weights[i] - node.weight;
+            node.weight = weights[i];
+
+            if (delta != 0) {
+                // record change in neighborhood weight of node and of all its neighbors
+                this.accumulateNeighborhoodWeight(node, delta);
+
+                for (int edge = node.firstEdge; edge != EdgePool.NIL; edge = this.edges.next[edge]) {
+                    this.accumulateNeighborhoodWeight(this.nodes.get(this.edges.neighborNodeIds[edge]), delta);
+                }
+            }
+
+            if (this.operationLog != null) {
+                this.operationLog.logUpdateNodeWeight(node_ids[i], weights[i]);
+            }
+
+            updated++;
+        }
+
+        this.repairBatch();
+
+        this.publishMaxNeighborhood();
+
+        return updated;
+    }
+
+    /**
+     * Given ids of nodes in the graph and changes in their neighborhood weights at the same index of the first count
+     * cells of the two arrays, changes the neighborhood weights of the nodes of those ids, skipping ids of nodes that
+     * do not exist. The changes are not backed by edges of the graph: ShardedGraph uses them for edges to nodes of
+     * other shards, whose weights are not in the graph, as ConcurrentGraph does for edges to nodes of other stripes.
+     * They are not logged, and readSnapshot rejects a snapshot of a graph with such changes. The max heap is repaired
+     * once for the whole batch.
+     * O(min(n, k log n) + k) for k = count - Expected.
+     *
+     * @param node_ids - the ids of the nodes.
+     * @param deltas   - the changes in neighborhood weights.
+     * @param count    - the number of ids.
+     * @return the number of nodes changed.
+     */
+    int addNeighborhoodWeights(int[] node_ids, long[] deltas, int count) {
+        Node node;
+        int changed = 0;
+
+        for (int i = 0; i < count; i++) {
+            if ((node = this.nodes.get(node_ids[i])) == null) {
+                continue;
+            }
+
+            this.accumulateNeighborhoodWeight(node, deltas[i]);
+
+            changed++;
+        }
+
+        this.repairBatch();
+
+        this.publishMaxNeighborhood();
+
+        return changed;
+    }
+
+    /**
+     * Given the id of a node in the graph, changes its neighborhood weight by delta, like addNeighborhoodWeights for
+     * a single node. O(log n) - Expected.
+     *
+     * @param node_id - the id of the node.
+     * @param delta   - the change in neighborhood weight.
+     * @return returns 'true' if the function changed a node, otherwise returns 'false'.
+     */
+    boolean addNeighborhoodWeight(int node_id, long delta) {
+        Node node = this.nodes.get(node_id);
+
+        if (node == null) {
+            return false;
+        }
+
+        this.changeNeighborhoodWeight(node, delta);
+
+        this.publishMaxNeighborhood();
+
+        return true;
+    }
+
+    /**
+     * Given ids of nodes in the graph, deletes the nodes of those ids from the graph, skipping ids of nodes that do
+     * not exist. The max heap is repaired once for the whole batch, so this is much faster than calling deleteNode for
+     * each id. O(min(n, (k+d) log n) + k + d) for k ids and d deleted edges - Expected.
+     *
+     * @param node_ids - the ids of the nodes to delete.
+     * @return the number of nodes deleted.
+     */
+    @Override
+    public int deleteNodes(int[] node_ids) {
+        return this.deleteNodes(node_ids, node_ids.length);
+    }
+
+    /**
+     * Given ids of nodes in the graph in the first count cells of an array, deletes the nodes of those ids from the
+     * graph, like deleteNodes, so that callers may reuse the same array for many batches.
+     * O(min(n, (k+d) log n) + k + d) for k = count and d deleted edges - Expected.
+     *
+     * @param node_ids - the ids of the nodes to delete.
+     * @param count    - the number of ids.
+     * @return the number of nodes deleted.
+     */
+    @Override
+    public int deleteNodes(int[] node_ids, int count) {
+        Node node, neighbor;
+        int deleted = 0, node_id;
+
+        for (int i = 0; i < count; i++) {
+            node_id = node_ids[i];
+
+            if ((node = this.nodes.get(node_id)) == null) {
+                continue;
+            }
+
+            for (int edge = node.firstEdge, nextEdge; edge != EdgePool.NIL; edge = nextEdge) {
+                nextEdge = this.edges.next[edge];
+                neighbor = this.nodes.get(this.edges.neighborNodeIds[edge]);
+
+                // delete reciprocal edges from all neighbors
+                this.edges.unlink(neighbor, edge ^ 1);
+                this.edges.freePair(edge);
+                this.edgeTable.delete(node_id, neighbor.getId());
+
+                // record change in neighbors weight
+                this.accumulateNeighborhoodWeight(neighbor, -node.getWeight());
+
+                // decrease numEdges by 1
+                this.numEdges--;
+            }
+
+            node.firstEdge = EdgePool.NIL;
+
+            if (this.eventStreams.length != 0) {
+                this.recordBatchWeight(node);
+                this.batchStamps[node.slot] = -this.batchStamp;
+            }
+
+            // record deletion of node neighborhood from max heap
+            this.maxNeighborhoodHeap.markDeleted(node.slot);
+
+            // delete node from hash table
+            this.nodes.delete(node_id);
+
+            if (this.operationLog != null) {
+                this.operationLog.logDeleteNode(node_id);
+            }
+
+            deleted++;
+        }
+
+        this.repairBatch();
+
+        // decrease numNodes by number of nodes deleted
+        this.numNodes -= deleted;
+
+        this.publishMaxNeighborhood();
+
+        return deleted;
+    }
 
     /**
      * Return number of nodes in graph. O(1).
      *
      * @return number of nodes in graph
      */
+    @Override
     public int getNumNodes() {
         return this.numNodes;
     }
@@ -631,7 +2513,483 @@ public class Graph {
      *
      * @return number of edges in graph
      */
+    @Override
     public int getNumEdges() {
         return this.numEdges;
     }
+
+    //NEIGHBORS---------------------------------------------------------------------------------------------------------
+
+    /**
+     * This class represents a reusable cursor over the neighbor ids of a node, walking the edge list of the node in
+     * place so that no object is allocated per node or per neighbor. A cursor is created once by newNeighborCursor and
+     * reset to any node of the graph. Neighbors are returned in no particular order. The graph must not be mutated
+     * while a cursor walks it.
+     */
+    public final class NeighborCursor {
+        private int edge = EdgePool.NIL;
+
+        /**
+         * Creates a new cursor, at no node. O(1).
+         */
+        private NeighborCursor() {
+        }
+
+        /**
+         * Moves the cursor to the start of the neighbors of the node of the given id, if it exists.
+         * Returns true if the node exists, otherwise returns false and the cursor has no neighbors. O(1) - Expected.
+         *
+         * @param node_id - an id of a node.
+         * @return 'true' if a node of id 'node_id' exists in the graph, otherwise 'false'.
+         */
+        public boolean reset(int node_id) {
+            Node node = Graph.this.nodes.get(node_id);
+
+            this.edge = node == null ? EdgePool.NIL : node.firstEdge;
+
+            return node != null;
+        }
+
+        /**
+         * Returns whether the cursor has more neighbors. O(1).
+         *
+         * @return 'true' if the cursor has more neighbors, otherwise 'false'.
+         */
+        public boolean hasNext() {
+            return this.edge != EdgePool.NIL;
+        }
+
+        /**
+         * Returns the id of the next neighbor and advances the cursor. O(1).
+         *
+         * @return the id of the next neighbor.
+         * @throws NoSuchElementException if the cursor has no more neighbors.
+         */
+        public int nextInt() {
+            int edge = this.edge;
+
+            if (edge == EdgePool.NIL) {
+                throw new NoSuchElementException();
+            }
+
+            this.edge = Graph.this.edges.next[edge];
+
+            return Graph.this.edges.neighborNodeIds[edge];
+        }
+    }
+
+    /**
+     * Returns a new cursor over the neighbors of nodes of the graph, to be reset to a node and reused for any number
+     * of nodes. O(1).
+     *
+     * @return a new neighbor cursor.
+     */
+    public NeighborCursor newNeighborCursor() {
+        return new NeighborCursor();
+    }
+
+    /**
+     * Given the id of a node in the graph, passes the id of each of its neighbors to action, in no particular order.
+     * The graph must not be mutated by action. Returns the number of neighbors, or -1 if no such node exists.
+     * O(d) - Expected.
+     *
+     * @param node_id - an id of a node.
+     * @param action  - action to perform on each neighbor id.
+     * @return the number of neighbors of the node, or -1.
+     */
+    @Override
+    public int forEachNeighbor(int node_id, IntConsumer action) {
+        Node node = this.nodes.get(node_id);
+
+        if (node == null) {
+            return -1;
+        }
+
+        int degree = 0;
+
+        for (int edge = node.firstEdge; edge != EdgePool.NIL; edge = this.edges.next[edge]) {
+            action.accept(this.edges.neighborNodeIds[edge]);
+            degree++;
+        }
+
+        return degree;
+    }
+
+    /**
+     * Given the id of a node in the graph, writes the ids of its neighbors to dst, in no particular order, as many as
+     * fit. Returns the number of neighbors, which may exceed the length of dst, so that a caller may grow dst and
+     * retry, or -1 if no such node exists. O(d) - Expected.
+     *
+     * @param node_id - an id of a node.
+     * @param dst     - array to write neighbor ids to.
+     * @return the number of neighbors of the node, or -1.
+     */
+    @Override
+    public int neighbors(int node_id, int[] dst) {
+        Node node = this.nodes.get(node_id);
+
+        if (node == null) {
+            return -1;
+        }
+
+        int degree = 0;
+
+        for (int edge = node.firstEdge; edge != EdgePool.NIL; edge = this.edges.next[edge]) {
+            if (degree < dst.length) {
+                dst[degree] = this.edges.neighborNodeIds[edge];
+            }
+
+            degree++;
+        }
+
+        return degree;
+    }
+
+    //SNAPSHOT----------------------------------------------------------------------------------------------------------
+
+    /**
+     * A snapshot is a binary file of the following sections, all numbers big endian:
+     * header      - magic, version, heap arity, number of nodes n and number of edges m, as ints.
+     * ids         - n ints, ids of the nodes in heap order.
+     * weights     - n ints, weights of the nodes in heap order.
+     * heapWeights - n longs, neighborhood weights of the nodes in heap order.
+     * offsets     - n+1 ints, the neighbors of the node at heap position p are at offsets[p]..offsets[p+1]-1.
+     * neighbors   - 2m ints, heap positions of the neighbors of all nodes (compressed sparse rows).
+     */
+    private static final int SNAPSHOT_MAGIC = 0x47525048;
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int SNAPSHOT_HEADER_BYTES = 5 * Integer.BYTES;
+    private static final int MAX_MAPPED_BYTES = 1 << 30;
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    /**
+     * Writes a snapshot of the graph to the given file, replacing it if it exists. The snapshot is written to a
+     * temporary file in the same directory, forced to the device and then atomically moved over the given file, so a
+     * crash while writing leaves the previous snapshot intact. O(n + m) - Expected.
+     *
+     * @param path - path of snapshot file.
+     * @throws IOException if writing fails.
+     */
+    public void writeSnapshot(Path path) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        boolean written = false;
+
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+
+                this.writeSnapshot(out);
+                out.flush();
+                channel.force(true);
+            }
+
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            written = true;
+        } finally {
+            if (!written) {
+                Files.deleteIfExists(temporary);
+            }
+        }
+    }
+
+    /**
+     * Writes the sections of a snapshot of the graph to the given stream. O(n + m) - Expected.
+     *
+     * @param out - output stream.
+     * @throws IOException if writing fails.
+     */
+    private void writeSnapshot(DataOutputStream out) throws IOException {
+        MaxNeighborhoodHeap heap = this.maxNeighborhoodHeap;
+
+        // the snapshot holds the heap as is, apply lazily recorded decreases
+        heap.repair();
+        Node node;
+        int n = this.numNodes, offset = 0, edge;
+
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeInt(heap.arity);
+        out.writeInt(n);
+        out.writeInt(this.numEdges);
+
+        for (int i = 0; i < n; i++) {
+            out.writeInt(heap.nodes[heap.slots[i]].getId());
+        }
+
+        for (int i = 0; i < n; i++) {
+            out.writeInt(heap.nodes[heap.slots[i]].getWeight());
+        }
+
+        for (int i = 0; i < n; i++) {
+            out.writeLong(heap.weights[i]);
+        }
+
+        out.writeInt(offset);
+
+        for (int i = 0; i < n; i++) {
+            for (edge = heap.nodes[heap.slots[i]].firstEdge; edge != EdgePool.NIL; edge = this.edges.next[edge]) {
+                offset++;
+            }
+
+            out.writeInt(offset);
+        }
+
+        for (int i = 0; i < n; i++) {
+            node = heap.nodes[heap.slots[i]];
+
+            for (edge = node.firstEdge; edge != EdgePool.NIL; edge = this.edges.next[edge]) {
+                out.writeInt(heap.positions[this.nodes.get(this.edges.neighborNodeIds[edge]).slot]);
+            }
+        }
+    }
+
+    /**
+     * Reads a graph from a snapshot file written by writeSnapshot. The file is memory mapped and its sections are
+     * copied in bulk, and the heap is restored in the order it was written, so nothing is heapified and no edge
+     * changes a neighborhood weight. Nothing in the file is trusted: the ids must be distinct, the adjacency must
+     * list every edge exactly once from each of its nodes, and the neighborhood weights must match the adjacency and
+     * be in heap order. O(n + m) - Expected.
+     *
+     * @param path - path of snapshot file.
+     * @return the graph.
+     * @throws IOException if reading fails, or the file is not a valid snapshot.
+     */
+    public static Graph readSnapshot(Path path) throws IOException {
+        int[] ids, weights, offsets, neighbors;
+        long[] heapWeights;
+        int arity, n, m;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < SNAPSHOT_HEADER_BYTES) {
+                throw new IOException("not a graph snapshot: " + path);
+            }
+
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, SNAPSHOT_HEADER_BYTES);
+
+            if (header.getInt() != SNAPSHOT_MAGIC || header.getInt() != SNAPSHOT_VERSION) {
+                throw new IOException("not a graph snapshot: " + path);
+            }
+
+            arity = header.getInt();
+            n = header.getInt();
+            m = header.getInt();
+
+            long size = SNAPSHOT_HEADER_BYTES + 2L * n * Integer.BYTES + (long) n * Long.BYTES +
+                    (n + 1L) * Integer.BYTES + 2L * m * Integer.BYTES;
+
+            if (arity < 2 || n < 0 || n >= MAX_ARRAY_LENGTH || m < 0 || 2L * m > MAX_ARRAY_LENGTH ||
+                    channel.size() != size) {
+                throw new IOException("corrupt graph snapshot: " + path);
+            }
+
+            long position = SNAPSHOT_HEADER_BYTES;
+
+            position = Graph.readInts(channel, position, ids = new int[n]);
+            position = Graph.readInts(channel, position, weights = new int[n]);
+            position = Graph.readLongs(channel, position, heapWeights = new long[n]);
+            position = Graph.readInts(channel, position, offsets = new int[n + 1]);
+            Graph.readInts(channel, position, neighbors = new int[2 * m]);
+        }
+
+        Graph.validateSnapshot(path, arity, weights, heapWeights, offsets, neighbors);
+
+        Node[] nodes = new Node[n];
+
+        for (int i = 0; i < n; i++) {
+            nodes[i] = new Node(ids[i], weights[i]);
+        }
+
+        Graph graph = new Graph(nodes, heapWeights, arity);
+        graph.edgeTable = new EdgeHashTable(m);
+
+        for (int i = 0; i < n; i++) {
+            if (graph.nodes.get(ids[i]) != nodes[i]) {
+                throw new IOException("corrupt graph snapshot, duplicate node id " + ids[i] + ": " + path);
+            }
+        }
+
+        // add every edge from its node of lower position, which must list it once
+        for (int i = 0; i < n; i++) {
+            for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+                if (i < neighbors[j]) {
+                    if (graph.edgeTable.get(ids[i], ids[neighbors[j]]) != EdgePool.NIL) {
+                        throw new IOException("corrupt graph snapshot, edge listed twice: " + path);
+                    }
+
+                    graph.edgeTable.insert(ids[i], ids[neighbors[j]],
+                            graph.edges.insert(nodes[i], nodes[neighbors[j]]));
+                    graph.numEdges++;
+                }
+            }
+        }
+
+        // every edge must be listed once by its node of higher position too
+        boolean[] listed = new boolean[graph.edges.next.length / 2];
+        int edge;
+
+        for (int i = 0; i < n; i++) {
+            for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+                if (i > neighbors[j]) {
+                    if ((edge = graph.edgeTable.get(ids[neighbors[j]], ids[i])) == EdgePool.NIL || listed[edge >> 1]) {
+                        throw new IOException("corrupt graph snapshot, edge not listed by both its nodes: " + path);
+                    }
+
+                    listed[edge >> 1] = true;
+                }
+            }
+        }
+
+        if (graph.numEdges != m) {
+            throw new IOException("corrupt graph snapshot, edge not listed by both its nodes: " + path);
+        }
+
+        return graph;
+    }
+
+    /**
+     * Checks the sections of a snapshot that do not depend on ids: the offsets never decrease, start at 0 and end at
+     * the number of neighbors, every neighbor is a position other than its own node, and the neighborhood weights
+     * are the weights of the nodes plus the weights of their neighbors, in heap order. O(n + m).
+     *
+     * @param path        - path of snapshot file, for messages.
+     * @param arity       - heap arity.
+     * @param weights     - weights of nodes, in heap order.
+     * @param heapWeights - neighborhood weights of nodes, in heap order.
+     * @param offsets     - n+1 offsets of neighbors.
+     * @param neighbors   - heap positions of neighbors.
+     * @throws IOException if a check fails.
+     */
+    private static void validateSnapshot(Path path, int arity, int[] weights, long[] heapWeights, int[] offsets,
+                                         int[] neighbors) throws IOException {
+        int n = weights.length;
+        long neighborhoodWeight;
+
+        if (offsets[0] != 0 || offsets[n] != neighbors.length) {
+            throw new IOException("corrupt graph snapshot, offsets do not cover the neighbors: " + path);
+        }
+
+        for (int i = 0; i < n; i++) {
+            if (offsets[i + 1] < offsets[i]) {
+                throw new IOException("corrupt graph snapshot, offsets decrease: " + path);
+            }
+
+            neighborhoodWeight = weights[i];
+
+            for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+                if (neighbors[j] < 0 || neighbors[j] >= n || neighbors[j] == i) {
+                    throw new IOException("corrupt graph snapshot, neighbor out of range: " + path);
+                }
+
+                neighborhoodWeight += weights[neighbors[j]];
+            }
+
+            if (neighborhoodWeight != heapWeights[i]) {
+                throw new IOException("corrupt graph snapshot, neighborhood weight does not match neighbors: " + path);
+            }
+
+            if (i > 0 && heapWeights[(i - 1) / arity] < heapWeights[i]) {
+                throw new IOException("corrupt graph snapshot, neighborhood weights not in heap order: " + path);
+            }
+        }
+    }
+
+    /**
+     * Fills array with ints read from file channel at given position, mapping at most MAX_MAPPED_BYTES at a time.
+     * O(length).
+     *
+     * @param channel  - file channel.
+     * @param position - position in file.
+     * @param dst      - array to fill.
+     * @return position in file after the ints read.
+     * @throws IOException if reading fails.
+     */
+    private static long readInts(FileChannel channel, long position, int[] dst) throws IOException {
+        for (int i = 0, length; i < dst.length; i += length, position += (long) length * Integer.BYTES) {
+            length = Math.min(dst.length - i, MAX_MAPPED_BYTES / Integer.BYTES);
+
+            channel.map(FileChannel.MapMode.READ_ONLY, position, (long) length * Integer.BYTES)
+                    .asIntBuffer().get(dst, i, length);
+        }
+
+        return position;
+    }
+
+    /**
+     * Fills array with longs read from file channel at given position, mapping at most MAX_MAPPED_BYTES at a time.
+     * O(length).
+     *
+     * @param channel  - file channel.
+     * @param position - position in file.
+     * @param dst      - array to fill.
+     * @return position in file after the longs read.
+     * @throws IOException if reading fails.
+     */
+    private static long readLongs(FileChannel channel, long position, long[] dst) throws IOException {
+        for (int i = 0, length; i < dst.length; i += length, position += (long) length * Long.BYTES) {
+            length = Math.min(dst.length - i, MAX_MAPPED_BYTES / Long.BYTES);
+
+            channel.map(FileChannel.MapMode.READ_ONLY, position, (long) length * Long.BYTES)
+                    .asLongBuffer().get(dst, i, length);
+        }
+
+        return position;
+    }
+
+    //FREEZE------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns a read only copy of the graph in compressed sparse rows, with the nodes ranked by neighborhood weight,
+     * typically several times smaller than the graph. The graph is not changed. O(n log n + m log d) - Expected.
+     *
+     * @return the frozen graph.
+     * @throws IllegalStateException if the compressed edges do not fit in an array.
+     */
+    public FrozenGraph freeze() {
+        // rank in a temporary array rather than through topK, whose frontier would keep its size of n
+        this.maxNeighborhoodHeap.repair();
+
+        int[] ranked = this.maxNeighborhoodHeap.getRankedSlots();
+        int n = ranked.length, degree, position = 0, end;
+        int[] ids = new int[n], weights = new int[n], offsets = new int[n + 1], neighborIds = new int[16];
+        long[] neighborhoodWeights = new long[n];
+
+        // most deltas of sorted neighbors take one or two bytes
+        byte[] adjacency = new byte[Math.max(16, (int) Math.min(Integer.MAX_VALUE - 8, 4L * this.numEdges))];
+
+        for (int rank = 0; rank < n; rank++) {
+            Node node = this.maxNeighborhoodHeap.nodes[ranked[rank]];
+
+            ids[rank] = node.getId();
+            weights[rank] = node.getWeight();
+            neighborhoodWeights[rank] = this.maxNeighborhoodHeap.getWeight(ranked[rank]);
+
+            degree = 0;
+
+            for (int edge = node.firstEdge; edge != EdgePool.NIL; edge = this.edges.next[edge]) {
+                if (degree == neighborIds.length) {
+                    neighborIds = Arrays.copyOf(neighborIds, 2 * degree);
+                }
+
+                neighborIds[degree++] = this.edges.neighborNodeIds[edge];
+            }
+
+            Arrays.sort(neighborIds, 0, degree);
+
+            while ((end = FrozenGraph.encode(neighborIds, degree, adjacency, position)) == -1) {
+                if (adjacency.length == Integer.MAX_VALUE - 8) {
+                    throw new IllegalStateException("compressed edges do not fit in an array");
+                }
+
+                adjacency = Arrays.copyOf(adjacency, (int) Math.min(Integer.MAX_VALUE - 8, 2L * adjacency.length));
+            }
+
+            position = end;
+            offsets[rank + 1] = position;
+        }
+
+        return new FrozenGraph(ids, weights, neighborhoodWeights, offsets, Arrays.copyOf(adjacency, position),
+                this.numEdges);
+    }
 }
\ No newline at end of file
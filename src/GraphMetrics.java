@@ -0,0 +1,315 @@
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * This class represents metrics of the hot paths of a graph: latencies of addEdge and deleteNode, probe lengths of
+ * node lookups, rehashes of the node hash table and distances moved by heap sifts.
+ * <p>
+ * Metrics are opt in. A graph records into a metrics object only while it is attached with Graph.setMetrics,
+ * otherwise every hot path pays a single null check. Recording is not synchronized: values are written by the thread
+ * using the graph and may be read slightly stale by others, e.g. through JMX once registered with register.
+ * <p>
+ * Latencies are recorded into histograms of log-linear buckets, as in HdrHistogram: values are grouped by their
+ * highest bit, and every group is split into SUB_BUCKETS equal buckets, so a percentile is within 1/SUB_BUCKETS of
+ * the true value, recording is O(1) and the histogram takes a few kilobytes whatever the range of values.
+ */
+public class GraphMetrics implements GraphMetricsMBean {
+    /**
+     * This class represents a histogram of non negative values in log-linear buckets.
+     */
+    private static class Histogram {
+        private static final int SUB_BUCKET_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+        private final long[] counts;
+        private long count;
+        private long max;
+
+        /**
+         * Creates a new empty histogram object. O(1).
+         */
+        private Histogram() {
+            this.counts = new long[(Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS];
+        }
+
+        /**
+         * Returns bucket of value: values below 2 * SUB_BUCKETS have a bucket each, and the values of every higher
+         * power of two are split into SUB_BUCKETS buckets by their SUB_BUCKET_BITS bits below the highest. O(1).
+         *
+         * @param value - value.
+         * @return bucket of value.
+         */
+        private static int getBucket(long value) {
+            int shift = Math.max(0, Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+
+            return shift == 0 ? (int) value : (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+        }
+
+        /**
+         * Returns the highest value of bucket. O(1).
+         *
+         * @param bucket - bucket.
+         * @return highest value of bucket.
+         */
+        private static long getHighestValue(int bucket) {
+            int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+
+            if (shift <= 0) {
+                return bucket;
+            }
+
+            return ((long) (bucket - (shift << SUB_BUCKET_BITS) + 1) << shift) - 1;
+        }
+
+        /**
+         * Records value. O(1).
+         *
+         * @param value - value, at least 0.
+         */
+        private void record(long value) {
+            this.counts[Histogram.getBucket(value)]++;
+            this.count++;
+
+            if (value > this.max) {
+                this.max = value;
+            }
+        }
+
+        /**
+         * Returns the highest value of the bucket of the value at given percentile, or 0 if empty.
+         * O(number of buckets).
+         *
+         * @param percentile - percentile, between 0 and 100.
+         * @return value at percentile.
+         */
+        private long getValueAtPercentile(double percentile) {
+            long rank = (long) Math.ceil(percentile / 100 * this.count), seen = 0;
+
+            for (int bucket = 0; bucket < this.counts.length; bucket++) {
+                seen += this.counts[bucket];
+
+                if (seen >= Math.max(1, rank)) {
+                    return Math.min(Histogram.getHighestValue(bucket), this.max);
+                }
+            }
+
+            return 0;
+        }
+
+        /**
+         * Empties histogram. O(number of buckets).
+         */
+        private void reset() {
+            Arrays.fill(this.counts, 0);
+            this.count = 0;
+            this.max = 0;
+        }
+    }
+
+    private final Histogram addEdgeLatencies;
+    private final Histogram deleteNodeLatencies;
+
+    private long lookups;
+    private long probes;
+    private long maxProbeLength;
+
+    private long rehashes;
+
+    private long sifts;
+    private long siftDistance;
+    private long maxSiftDistance;
+
+    /**
+     * Creates a new empty metrics object. O(1).
+     */
+    public GraphMetrics() {
+        this.addEdgeLatencies = new Histogram();
+        this.deleteNodeLatencies = new Histogram();
+    }
+
+    //RECORDING---------------------------------------------------------------------------------------------------------
+
+    /**
+     * Records latency of addEdge. O(1).
+     *
+     * @param nanos - latency in nanoseconds.
+     */
+    void recordAddEdge(long nanos) {
+        this.addEdgeLatencies.record(nanos);
+    }
+
+    /**
+     * Records latency of deleteNode. O(1).
+     *
+     * @param nanos - latency in nanoseconds.
+     */
+    void recordDeleteNode(long nanos) {
+        this.deleteNodeLatencies.record(nanos);
+    }
+
+    /**
+     * Records probe length of a lookup in the node hash table, the number of slots read. O(1).
+     *
+     * @param probeLength - probe length.
+     */
+    void recordProbe(int probeLength) {
+        this.lookups++;
+        this.probes += probeLength;
+
+        if (probeLength > this.maxProbeLength) {
+            this.maxProbeLength = probeLength;
+        }
+    }
+
+    /**
+     * Records a rehash of the node hash table with a new hash function, after a probe sequence was too long. O(1).
+     */
+    void recordRehash() {
+        this.rehashes++;
+    }
+
+    /**
+     * Records distance of a heap sift, the number of levels moved. O(1).
+     *
+     * @param distance - distance.
+     */
+    void recordSift(int distance) {
+        this.sifts++;
+        this.siftDistance += distance;
+
+        if (distance > this.maxSiftDistance) {
+            this.maxSiftDistance = distance;
+        }
+    }
+
+    //JMX---------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Registers metrics with the platform MBean server, under name Graph:type=GraphMetrics,name=[name].
+     *
+     * @param name - name of metrics, e.g. of the graph.
+     * @return the object name registered.
+     * @throws JMException if registration fails, e.g. if the name is taken.
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName("Graph:type=GraphMetrics,name=" + ObjectName.quote(name));
+
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+
+        return objectName;
+    }
+
+    /**
+     * Unregisters metrics registered under given name from the platform MBean server.
+     *
+     * @param objectName - the object name returned by register.
+     * @throws JMException if unregistration fails.
+     */
+    public static void unregister(ObjectName objectName) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+    }
+
+    //ATTRIBUTES--------------------------------------------------------------------------------------------------------
+
+    @Override
+    public long getAddEdgeCount() {
+        return this.addEdgeLatencies.count;
+    }
+
+    @Override
+    public long getAddEdgeLatencyP50() {
+        return this.addEdgeLatencies.getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getAddEdgeLatencyP99() {
+        return this.addEdgeLatencies.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getAddEdgeLatencyP999() {
+        return this.addEdgeLatencies.getValueAtPercentile(99.9);
+    }
+
+    @Override
+    public long getAddEdgeLatencyMax() {
+        return this.addEdgeLatencies.max;
+    }
+
+    @Override
+    public long getDeleteNodeCount() {
+        return this.deleteNodeLatencies.count;
+    }
+
+    @Override
+    public long getDeleteNodeLatencyP50() {
+        return this.deleteNodeLatencies.getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getDeleteNodeLatencyP99() {
+        return this.deleteNodeLatencies.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getDeleteNodeLatencyP999() {
+        return this.deleteNodeLatencies.getValueAtPercentile(99.9);
+    }
+
+    @Override
+    public long getDeleteNodeLatencyMax() {
+        return this.deleteNodeLatencies.max;
+    }
+
+    @Override
+    public long getLookupCount() {
+        return this.lookups;
+    }
+
+    @Override
+    public double getMeanProbeLength() {
+        return this.lookups == 0 ? 0 : (double) this.probes / this.lookups;
+    }
+
+    @Override
+    public long getMaxProbeLength() {
+        return this.maxProbeLength;
+    }
+
+    @Override
+    public long getRehashCount() {
+        return this.rehashes;
+    }
+
+    @Override
+    public long getSiftCount() {
+        return this.sifts;
+    }
+
+    @Override
+    public double getMeanSiftDistance() {
+        return this.sifts == 0 ? 0 : (double) this.siftDistance / this.sifts;
+    }
+
+    @Override
+    public long getMaxSiftDistance() {
+        return this.maxSiftDistance;
+    }
+
+    @Override
+    public void reset() {
+        this.addEdgeLatencies.reset();
+        this.deleteNodeLatencies.reset();
+
+        this.lookups = 0;
+        this.probes = 0;
+        this.maxProbeLength = 0;
+        this.rehashes = 0;
+
+        this.sifts = 0;
+        this.siftDistance = 0;
+        this.maxSiftDistance = 0;
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * This interface represents the management interface of GraphMetrics, as exposed through JMX.
+ * Latencies are in nanoseconds.
+ */
+public interface GraphMetricsMBean {
+    long getAddEdgeCount();
+
+    long getAddEdgeLatencyP50();
+
+    long getAddEdgeLatencyP99();
+
+    long getAddEdgeLatencyP999();
+
+    long getAddEdgeLatencyMax();
+
+    long getDeleteNodeCount();
+
+    long getDeleteNodeLatencyP50();
+
+    long getDeleteNodeLatencyP99();
+
+    long getDeleteNodeLatencyP999();
+
+    long getDeleteNodeLatencyMax();
+
+    long getLookupCount();
+
+    double getMeanProbeLength();
+
+    long getMaxProbeLength();
+
+    long getRehashCount();
+
+    long getSiftCount();
+
+    double getMeanSiftDistance();
+
+    long getMaxSiftDistance();
+
+    void reset();
+}
@@ -0,0 +1,228 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * This class represents a stream of neighborhood weight events of a graph, as subscribed with Graph.subscribe.
+ * <p>
+ * Events are:
+ * MAX_CHANGED     - the node with the maximum neighborhood weight or that weight changed, given the id of the node
+ * and its neighborhood weight, or id 0 and weight -1 if the graph became empty. Emitted at most once
+ * per mutation, for the max after the mutation.
+ * ABOVE_THRESHOLD - the neighborhood weight of a node rose to at least the threshold of the stream, or a node of
+ * neighborhood weight at least the threshold was added, given the id of the node and its weight.
+ * BELOW_THRESHOLD - the neighborhood weight of a node fell below the threshold of the stream, given the id of the node
+ * and its weight, or -1 if the node was deleted.
+ * A batch operation emits at most one threshold event per node, comparing its neighborhood weight before the batch to
+ * its weight after it, so a node that crosses the threshold and back within a batch emits none.
+ * <p>
+ * Events are kept in a bounded ring buffer of parallel primitive arrays, written by the thread mutating the graph and
+ * read by a single consumer thread, neither ever waiting for the other: the writer publishes events by a release
+ * store of the tail and the consumer frees them by a release store of the head. A writer that finds the buffer full
+ * never blocks: threshold events are dropped and counted, and a MAX_CHANGED event is held aside, replaced by any later
+ * one, and written by the first mutation after the consumer made room, so the consumer ends up with the current max.
+ */
+public class NeighborhoodEventStream {
+    public static final byte MAX_CHANGED = 1;
+    public static final byte ABOVE_THRESHOLD = 2;
+    public static final byte BELOW_THRESHOLD = 3;
+
+    private static final VarHandle HEAD;
+    private static final VarHandle TAIL;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+            HEAD = lookup.findVarHandle(NeighborhoodEventStream.class, "head", long.class);
+            TAIL = lookup.findVarHandle(NeighborhoodEventStream.class, "tail", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * This interface represents a handler of events, called by drain once per event.
+     */
+    public interface Handler {
+        /**
+         * Handles an event.
+         *
+         * @param type   - type of event, MAX_CHANGED, ABOVE_THRESHOLD or BELOW_THRESHOLD.
+         * @param nodeId - id of node.
+         * @param weight - neighborhood weight of node, or -1.
+         */
+        void onEvent(byte type, int nodeId, long weight);
+    }
+
+    private final long threshold;
+
+    // events by position in buffer
+    private final byte[] types;
+    private final int[] nodeIds;
+    private final long[] weights;
+    private final int mask;
+
+    // number of events read by the consumer, and written by the writer
+    private long head;
+    private long tail;
+
+    // fields of the writer only
+    private boolean maxPending;
+    private int pendingNodeId;
+    private long pendingWeight;
+    private long dropped;
+
+    /**
+     * Creates a new empty stream object, given its threshold and capacity. O(capacity).
+     *
+     * @param threshold - threshold of neighborhood weights.
+     * @param capacity  - maximum number of unread events, rounded up to a power of two.
+     * @throws IllegalArgumentException if capacity is less than 1 or more than 2^30.
+     */
+    NeighborhoodEventStream(long threshold, int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+        }
+
+        capacity = Math.max(1, Integer.highestOneBit(capacity - 1) << 1);
+
+        this.threshold = threshold;
+
+        this.types = new byte[capacity];
+        this.nodeIds = new int[capacity];
+        this.weights = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    //WRITER------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Writes an event, if there is room, and returns whether it was written. O(1).
+     *
+     * @param type   - type of event.
+     * @param nodeId - id of node.
+     * @param weight - weight.
+     * @return 'true' if the event was written, otherwise 'false'.
+     */
+    private boolean write(byte type, int nodeId, long weight) {
+        long tail = this.tail;
+
+        if (tail - (long) HEAD.getAcquire(this) > this.mask) {
+            return false;
+        }
+
+        int i = (int) tail & this.mask;
+
+        this.types[i] = type;
+        this.nodeIds[i] = nodeId;
+        this.weights[i] = weight;
+
+        TAIL.setRelease(this, tail + 1);
+
+        return true;
+    }
+
+    /**
+     * Writes the held MAX_CHANGED event, if any and if there is room, so that it is not held until the max changes
+     * again. O(1).
+     *
+     * @return 'true' if no MAX_CHANGED event is held any more, otherwise 'false'.
+     */
+    boolean flushMax() {
+        if (this.maxPending && this.write(MAX_CHANGED, this.pendingNodeId, this.pendingWeight)) {
+            this.maxPending = false;
+        }
+
+        return !this.maxPending;
+    }
+
+    /**
+     * Emits a MAX_CHANGED event, holding it aside if there is no room. O(1).
+     *
+     * @param nodeId - id of max node, or 0.
+     * @param weight - max neighborhood weight, or -1.
+     */
+    void emitMax(int nodeId, long weight) {
+        this.maxPending = true;
+        this.pendingNodeId = nodeId;
+        this.pendingWeight = weight;
+
+        this.flushMax();
+    }
+
+    /**
+     * Emits a threshold event if the neighborhood weight of a node crossed the threshold, dropping it if there is no
+     * room. A weight of Long.MIN_VALUE stands for a node not in the graph, which is never above the threshold. O(1).
+     *
+     * @param nodeId - id of node.
+     * @param before - neighborhood weight before the change.
+     * @param after  - neighborhood weight after the change.
+     */
+    void emitCrossing(int nodeId, long before, long after) {
+        boolean wasAbove = before != Long.MIN_VALUE && before >= this.threshold;
+        boolean isAbove = after != Long.MIN_VALUE && after >= this.threshold;
+
+        if (wasAbove == isAbove) {
+            return;
+        }
+
+        // an event written before the held max would reorder them
+        if (!this.flushMax() || !this.write(isAbove ? ABOVE_THRESHOLD : BELOW_THRESHOLD, nodeId,
+                after == Long.MIN_VALUE ? -1 : after)) {
+            this.dropped++;
+        }
+    }
+
+    //CONSUMER----------------------------------------------------------------------------------------------------------
+
+    /**
+     * Passes at most max unread events to handler, oldest first, and frees them. Must only be called by one thread
+     * at a time. Never waits for the writer. O(events drained).
+     *
+     * @param handler - handler of events.
+     * @param max     - maximum number of events to drain.
+     * @return the number of events drained.
+     */
+    public int drain(Handler handler, int max) {
+        long head = this.head, tail = (long) TAIL.getAcquire(this);
+        int count = (int) Math.min(tail - head, Math.max(0, max)), i;
+
+        for (int k = 0; k < count; k++) {
+            i = (int) (head + k) & this.mask;
+
+            handler.onEvent(this.types[i], this.nodeIds[i], this.weights[i]);
+        }
+
+        HEAD.setRelease(this, head + count);
+
+        return count;
+    }
+
+    /**
+     * Returns the number of unread events. May be called by any thread. O(1).
+     *
+     * @return number of unread events.
+     */
+    public int size() {
+        return (int) ((long) TAIL.getAcquire(this) - (long) HEAD.getAcquire(this));
+    }
+
+    /**
+     * Returns the threshold of the stream. O(1).
+     *
+     * @return threshold of neighborhood weights.
+     */
+    public long getThreshold() {
+        return this.threshold;
+    }
+
+    /**
+     * Returns the number of threshold events dropped because the buffer was full. Exact when read by the thread
+     * mutating the graph, possibly stale when read by others. O(1).
+     *
+     * @return number of events dropped.
+     */
+    public long getDropped() {
+        return this.dropped;
+    }
+}
@@ -0,0 +1,55 @@
+import java.util.function.IntConsumer;
+
+/**
+ * This interface represents a graph of weighted nodes that maintains the heaviest neighborhood over its mutations, as
+ * implemented by Graph on the Java heap and by OffHeapGraph in direct memory. Every method behaves as the method of
+ * the same name of Graph documents; batch methods return what applying their elements one by one would.
+ * <p>
+ * Only the queries and mutations are shared. Snapshots (writeSnapshot, readSnapshot), the operation log
+ * (setOperationLog), metrics (setMetrics), lazy repair (setLazyRepair), event streams (subscribe), published maxima
+ * (setPublishing), neighbor cursors and freezing are Graph only: OffHeapGraph does not implement them, and code that
+ * needs them must hold a Graph rather than a NeighborhoodGraph.
+ */
+public interface NeighborhoodGraph {
+    Graph.Node maxNeighborhoodWeight();
+
+    Graph.Node[] topK(int k);
+
+    int getNeighborhoodWeight(int node_id);
+
+    long getNeighborhoodWeightLong(int node_id);
+
+    boolean containsNode(int node_id);
+
+    boolean hasEdge(int node1_id, int node2_id);
+
+    int forEachNeighbor(int node_id, IntConsumer action);
+
+    int neighbors(int node_id, int[] dst);
+
+    int getNumNodes();
+
+    int getNumEdges();
+
+    boolean addEdge(int node1_id, int node2_id);
+
+    int addEdges(int[] node1_ids, int[] node2_ids);
+
+    int addEdges(int[] node1_ids, int[] node2_ids, int count);
+
+    boolean addNode(Graph.Node node);
+
+    boolean deleteNode(int node_id);
+
+    int deleteNodes(int[] node_ids);
+
+    int deleteNodes(int[] node_ids, int count);
+
+    boolean deleteEdge(int node1_id, int node2_id);
+
+    boolean updateNodeWeight(int node_id, int weight);
+
+    int updateNodeWeights(int[] node_ids, int[] weights);
+
+    int updateNodeWeights(int[] node_ids, int[] weights, int count);
+}
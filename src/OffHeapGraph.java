@@ -0,0 +1,1155 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * This class represents a graph that maintains the heaviest neighborhood over edge addition and vertex deletion, as
+ * Graph does, with all of its storage outside the Java heap.
+ * <p>
+ * Node records, edges, the max heap of neighborhoods and the hash tables of nodes and edges are kept in direct
+ * buffers allocated with ByteBuffer.allocateDirect, in pages of 2^PAGE_BITS elements, so that the Java heap holds a
+ * few small objects per page whatever the size of the graph, and the garbage collector never traces or copies graph
+ * data.
+ * Arrays grow by adding pages, so growing never copies them; only the hash tables are rehashed when they double, and
+ * they migrate to the doubled table a few entries per operation. Batch operations apply their elements one by one.
+ * <p>
+ * Nodes are stored by slot, a small integer that does not change while the node is in the graph, and edges are
+ * allocated in pairs as in Graph, so the reciprocal of edge e is edge e ^ 1 and every edge holds the slot of its
+ * neighbor. Node objects passed to the graph are copied and not referenced, and node objects returned are new objects
+ * with the id and weight of the node.
+ */
+public class OffHeapGraph implements NeighborhoodGraph {
+    private static final int NIL = -1;
+    private static final int DEFAULT_HEAP_ARITY = 4;
+
+    private static final int PAGE_BITS = 16;
+    private static final int PAGE_MASK = (1 << PAGE_BITS) - 1;
+
+    //DIRECT ARRAYS-----------------------------------------------------------------------------------------------------
+
+    /**
+     * This class represents a growable array of ints in direct memory, in pages of 2^PAGE_BITS ints.
+     * New pages are zeroed.
+     */
+    private static class IntArray {
+        private ByteBuffer[] pages;
+
+        /**
+         * Creates a new array object, given its initial capacity, of at least one page. O(capacity).
+         *
+         * @param capacity - initial capacity.
+         */
+        private IntArray(int capacity) {
+            this.pages = new ByteBuffer[0];
+            this.ensureCapacity(Math.max(1, capacity));
+        }
+
+        /**
+         * Adds pages until the array holds at least capacity ints. O(pages added).
+         *
+         * @param capacity - capacity.
+         */
+        private void ensureCapacity(long capacity) {
+            int numPages = (int) ((capacity + PAGE_MASK) >>> PAGE_BITS), i = this.pages.length;
+
+            if (numPages > i) {
+                this.pages = Arrays.copyOf(this.pages, numPages);
+
+                for (; i < numPages; i++) {
+                    this.pages[i] = ByteBuffer.allocateDirect(Integer.BYTES << PAGE_BITS)
+                            .order(ByteOrder.nativeOrder());
+                }
+            }
+        }
+
+        /**
+         * Returns int at index. O(1).
+         *
+         * @param i - index.
+         * @return int at index.
+         */
+        private int get(int i) {
+            return this.pages[i >>> PAGE_BITS].getInt((i & PAGE_MASK) << 2);
+        }
+
+        /**
+         * Sets int at index. O(1).
+         *
+         * @param i     - index.
+         * @param value - value.
+         */
+        private void set(int i, int value) {
+            this.pages[i >>> PAGE_BITS].putInt((i & PAGE_MASK) << 2, value);
+        }
+    }
+
+    /**
+     * This class represents a growable array of longs in direct memory, in pages of 2^PAGE_BITS longs.
+     * New pages are zeroed.
+     */
+    private static class LongArray {
+        private ByteBuffer[] pages;
+
+        /**
+         * Creates a new array object, given its initial capacity, of at least one page. O(capacity).
+         *
+         * @param capacity - initial capacity.
+         */
+        private LongArray(int capacity) {
+            this.pages = new ByteBuffer[0];
+            this.ensureCapacity(Math.max(1, capacity));
+        }
+
+        /**
+         * Adds pages until the array holds at least capacity longs. O(pages added).
+         *
+         * @param capacity - capacity.
+         */
+        private void ensureCapacity(long capacity) {
+            int numPages = (int) ((capacity + PAGE_MASK) >>> PAGE_BITS), i = this.pages.length;
+
+            if (numPages > i) {
+                this.pages = Arrays.copyOf(this.pages, numPages);
+
+                for (; i < numPages; i++) {
+                    this.pages[i] = ByteBuffer.allocateDirect(Long.BYTES << PAGE_BITS).order(ByteOrder.nativeOrder());
+                }
+            }
+        }
+
+        /**
+         * Returns long at index. O(1).
+         *
+         * @param i - index.
+         * @return long at index.
+         */
+        private long get(int i) {
+            return this.pages[i >>> PAGE_BITS].getLong((i & PAGE_MASK) << 3);
+        }
+
+        /**
+         * Sets long at index. O(1).
+         *
+         * @param i     - index.
+         * @param value - value.
+         */
+        private void set(int i, long value) {
+            this.pages[i >>> PAGE_BITS].putLong((i & PAGE_MASK) << 3, value);
+        }
+    }
+
+    //DIRECT HASH TABLE-------------------------------------------------------------------------------------------------
+
+    /**
+     * This class represents an open addressing hash table from non zero longs to ints, in direct memory, over parallel
+     * key and value arrays, with a key of 0 marking an empty slot. Probing, migration when doubling and rehashing with
+     * a new hash function when keys cluster are those of ProbingHashTable, shared with the node hash table of Graph,
+     * which this class provides storage to.
+     */
+    private static class DirectHashTable extends ProbingHashTable {
+        private LongArray keys;
+        private IntArray values;
+
+        // table being migrated into the current one, or null
+        private LongArray oldKeys;
+        private IntArray oldValues;
+
+        /**
+         * Creates a new hash table object, given the number of keys it should hold. The table is kept at most half
+         * full. O(size).
+         *
+         * @param size - number of keys.
+         */
+        private DirectHashTable(int size) {
+            super(size);
+
+            this.keys = new LongArray(this.getCapacity());
+            this.values = new IntArray(this.getCapacity());
+        }
+
+        /**
+         * Returns whether slot of table is empty, holding key 0. O(1).
+         *
+         * @param table - CURRENT or OLD.
+         * @param slot  - slot.
+         * @return 'true' if slot is empty, otherwise 'false'.
+         */
+        @Override
+        boolean isEmpty(int table, int slot) {
+            return (table == CURRENT ? this.keys : this.oldKeys).get(slot) == 0;
+        }
+
+        /**
+         * Returns key of slot of table. O(1).
+         *
+         * @param table - CURRENT or OLD.
+         * @param slot  - slot.
+         * @return key.
+         */
+        @Override
+        long getKey(int table, int slot) {
+            return (table == CURRENT ? this.keys : this.oldKeys).get(slot);
+        }
+
+        /**
+         * Copies key and value of slot of table into slot of the current table. O(1).
+         *
+         * @param table - CURRENT or OLD.
+         * @param from  - slot of table.
+         * @param to    - slot of current table.
+         */
+        @Override
+        void copy(int table, int from, int to) {
+            this.keys.set(to, (table == CURRENT ? this.keys : this.oldKeys).get(from));
+            this.values.set(to, (table == CURRENT ? this.values : this.oldValues).get(from));
+        }
+
+        /**
+         * Empties slot of table. O(1).
+         *
+         * @param table - CURRENT or OLD.
+         * @param slot  - slot.
+         */
+        @Override
+        void clear(int table, int slot) {
+            (table == CURRENT ? this.keys : this.oldKeys).set(slot, 0);
+        }
+
+        /**
+         * Makes the current arrays the old arrays, and allocates empty current arrays of given size. O(capacity).
+         *
+         * @param capacity - number of slots of new table, a power of two.
+         */
+        @Override
+        void allocate(int capacity) {
+            this.oldKeys = this.keys;
+            this.oldValues = this.values;
+            this.keys = new LongArray(capacity);
+            this.values = new IntArray(capacity);
+        }
+
+        /**
+         * Releases the old arrays, whose direct memory is freed once they are collected. O(1).
+         */
+        @Override
+        void release() {
+            this.oldKeys = null;
+            this.oldValues = null;
+        }
+
+        /**
+         * Returns value of key, or NIL if key is not in table. O(1) - Expected.
+         *
+         * @param key - key.
+         * @return value of key, or NIL.
+         */
+        private int get(long key) {
+            int slot = this.find(key);
+
+            if (slot == NIL) {
+                return NIL;
+            }
+
+            return (slot & OLD_SLOT) == 0 ? this.values.get(slot) : this.oldValues.get(slot ^ OLD_SLOT);
+        }
+
+        /**
+         * Inserts key with value, which must not be in the table. O(1) - Expected amortized.
+         *
+         * @param key   - key, not 0.
+         * @param value - value.
+         * @throws IllegalStateException if the table is at its maximum size.
+         */
+        private void insert(long key, int value) {
+            int slot = this.reserve(key);
+
+            this.keys.set(slot, key);
+            this.values.set(slot, value);
+
+            this.inserted(slot);
+        }
+    }
+
+    //GRAPH-------------------------------------------------------------------------------------------------------------
+
+    private int numNodes;
+    private int numEdges;
+
+    private final int arity;
+
+    // node records by slot, free slots are linked through firstEdges
+    private final IntArray ids;
+    private final IntArray weights;
+    private final IntArray firstEdges;
+    private final IntArray positions;
+    private int numSlots;
+    private int freeSlot;
+
+    // edges, in pairs
+    private final IntArray neighborSlots;
+    private final IntArray prev;
+    private final IntArray next;
+    private int usedEdges;
+    private int freeEdge;
+
+    // max heap of neighborhoods by heap position
+    private final LongArray heapWeights;
+    private final IntArray heapSlots;
+    private int heapSize;
+
+    // max heap of heap positions, used by topK
+    private final IntArray frontier;
+
+    // slots of nodes by id, and edges from the node of the smaller id by pair of ids
+    private final DirectHashTable nodeTable;
+    private final DirectHashTable edgeTable;
+
+    /**
+     * Initializes the graph on a given set of nodes, with no edges. O(n).
+     *
+     * @param nodes - an array of node objects
+     */
+    public OffHeapGraph(Graph.Node[] nodes) {
+        this(nodes, DEFAULT_HEAP_ARITY);
+    }
+
+    /**
+     * Initializes the graph on a given set of nodes, with no edges, and a max d-ary heap of their neighborhoods,
+     * given d. O(n).
+     *
+     * @param nodes     - an array of node objects
+     * @param heapArity - number of children of each position in the heap, at least 2.
+     * @throws IllegalArgumentException if heapArity is less than 2.
+     */
+    public OffHeapGraph(Graph.Node[] nodes, int heapArity) {
+        if (heapArity < 2) {
+            throw new IllegalArgumentException("heap arity must be at least 2");
+        }
+
+        int n = nodes.length;
+
+        this.arity = heapArity;
+
+        this.ids = new IntArray(n);
+        this.weights = new IntArray(n);
+        this.firstEdges = new IntArray(n);
+        this.positions = new IntArray(n);
+        this.freeSlot = NIL;
+
+        this.neighborSlots = new IntArray(2 * n);
+        this.prev = new IntArray(2 * n);
+        this.next = new IntArray(2 * n);
+        this.freeEdge = NIL;
+
+        this.heapWeights = new LongArray(n);
+        this.heapSlots = new IntArray(n);
+        this.frontier = new IntArray(1);
+
+        this.nodeTable = new DirectHashTable(n);
+        this.edgeTable = new DirectHashTable(n);
+
+        // slot of node is its index, and so is its heap position before the heap is built
+        for (int i = 0; i < n; i++) {
+            this.ids.set(i, nodes[i].getId());
+            this.weights.set(i, nodes[i].getWeight());
+            this.firstEdges.set(i, NIL);
+            this.place(i, nodes[i].getWeight(), i);
+            this.nodeTable.insert(OffHeapGraph.getNodeKey(nodes[i].getId()), i);
+        }
+
+        this.numSlots = n;
+        this.heapSize = n;
+        this.numNodes = n;
+        this.numEdges = 0;
+
+        for (int i = (n - 2) / this.arity; i >= 0; i--) {
+            this.heapifyDown(i);
+        }
+    }
+
+    /**
+     * Initializes an empty graph, with no nodes and no edges. Nodes may be added later using addNode. O(1).
+     */
+    public OffHeapGraph() {
+        this(new Graph.Node[0]);
+    }
+
+    /**
+     * Returns key of node id in the node table, never 0. O(1).
+     *
+     * @param nodeId - id of node.
+     * @return key of node id.
+     */
+    private static long getNodeKey(int nodeId) {
+        return (1L << 32) | (nodeId & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns slot of node with given id, or NIL if no such node exists. O(1) - Expected.
+     *
+     * @param nodeId - id of node.
+     * @return slot of node, or NIL.
+     */
+    private int getSlot(int nodeId) {
+        return this.nodeTable.get(OffHeapGraph.getNodeKey(nodeId));
+    }
+
+    /**
+     * Returns the edge from the node of the first id to the node of the second, or NIL if there is no such edge.
+     * O(1) - Expected.
+     *
+     * @param id1 - id of first node.
+     * @param id2 - id of second node.
+     * @return edge, or NIL.
+     */
+    private int getEdge(int id1, int id2) {
+        int edge = this.edgeTable.get(ProbingHashTable.getPairKey(id1, id2));
+
+        return edge == NIL || id1 < id2 ? edge : edge ^ 1;
+    }
+
+    //SLOTS AND EDGES---------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns an unused slot, reusing freed slots when possible. O(1) - Amortized.
+     *
+     * @return slot.
+     */
+    private int allocateSlot() {
+        int slot;
+
+        if (this.freeSlot != NIL) {
+            slot = this.freeSlot;
+            this.freeSlot = this.firstEdges.get(slot);
+        } else {
+            slot = this.numSlots++;
+
+            this.ids.ensureCapacity(this.numSlots);
+            this.weights.ensureCapacity(this.numSlots);
+            this.firstEdges.ensureCapacity(this.numSlots);
+            this.positions.ensureCapacity(this.numSlots);
+            this.heapWeights.ensureCapacity(this.numSlots);
+            this.heapSlots.ensureCapacity(this.numSlots);
+        }
+
+        return slot;
+    }
+
+    /**
+     * Returns slot to free list. O(1).
+     *
+     * @param slot - slot.
+     */
+    private void freeSlot(int slot) {
+        this.firstEdges.set(slot, this.freeSlot);
+        this.freeSlot = slot;
+    }
+
+    /**
+     * Returns first edge of a pair of unused edges, reusing freed pairs when possible. O(1) - Amortized.
+     *
+     * @return first edge of pair.
+     * @throws IllegalStateException if there are too many edges.
+     */
+    private int allocatePair() {
+        int edge;
+
+        if (this.freeEdge != NIL) {
+            edge = this.freeEdge;
+            this.freeEdge = this.next.get(edge);
+        } else {
+            if (this.usedEdges > Integer.MAX_VALUE - 2) {
+                throw new IllegalStateException("too many edges");
+            }
+
+            edge = this.usedEdges;
+            this.usedEdges += 2;
+
+            this.neighborSlots.ensureCapacity(this.usedEdges);
+            this.prev.ensureCapacity(this.usedEdges);
+            this.next.ensureCapacity(this.usedEdges);
+        }
+
+        return edge;
+    }
+
+    /**
+     * Returns pair of given edge to free list. O(1).
+     *
+     * @param edge - edge of pair.
+     */
+    private void freePair(int edge) {
+        edge &= ~1;
+
+        this.next.set(edge, this.freeEdge);
+        this.freeEdge = edge;
+    }
+
+    /**
+     * Adds edge to start of edge list of node of given slot. O(1).
+     *
+     * @param slot - slot of node.
+     * @param edge - edge.
+     */
+    private void link(int slot, int edge) {
+        int first = this.firstEdges.get(slot);
+
+        this.prev.set(edge, NIL);
+        this.next.set(edge, first);
+
+        if (first != NIL) {
+            this.prev.set(first, edge);
+        }
+
+        this.firstEdges.set(slot, edge);
+    }
+
+    /**
+     * Removes edge from edge list of node of given slot. O(1).
+     *
+     * @param slot - slot of node.
+     * @param edge - edge.
+     */
+    private void unlink(int slot, int edge) {
+        int prevEdge = this.prev.get(edge), nextEdge = this.next.get(edge);
+
+        if (prevEdge == NIL) {
+            this.firstEdges.set(slot, nextEdge);
+        } else {
+            this.next.set(prevEdge, nextEdge);
+        }
+
+        if (nextEdge != NIL) {
+            this.prev.set(nextEdge, prevEdge);
+        }
+    }
+
+    //NEIGHBORHOOD MAX HEAP---------------------------------------------------------------------------------------------
+
+    /**
+     * Moves neighborhood into heap position, given its weight and slot. O(1).
+     *
+     * @param i      - heap position.
+     * @param weight - neighborhood weight.
+     * @param slot   - slot of node.
+     */
+    private void place(int i, long weight, int slot) {
+        this.heapWeights.set(i, weight);
+        this.heapSlots.set(i, slot);
+        this.positions.set(slot, i);
+    }
+
+    /**
+     * Heapify down neighborhood, given its heap position. O(d log_d n).
+     *
+     * @param i - heap position of neighborhood.
+     */
+    private void heapifyDown(int i) {
+        long weight = this.heapWeights.get(i), maxWeight, childWeight;
+        int slot = this.heapSlots.get(i), max, child, lastChild;
+
+        while ((child = this.arity * i + 1) < this.heapSize) {
+            max = child;
+            maxWeight = this.heapWeights.get(child);
+            lastChild = Math.min(child + this.arity, this.heapSize);
+
+            while (++child < lastChild) {
+                if ((childWeight = this.heapWeights.get(child)) > maxWeight) {
+                    max = child;
+                    maxWeight = childWeight;
+                }
+            }
+
+            if (maxWeight <= weight) {
+                break;
+            }
+
+            // move heaviest child up into the hole
+            this.place(i, maxWeight, this.heapSlots.get(max));
+            i = max;
+        }
+
+        this.place(i, weight, slot);
+    }
+
+    /**
+     * Heapify up neighborhood, given its heap position. O(log_d n).
+     *
+     * @param i - heap position of neighborhood.
+     */
+    private void heapifyUp(int i) {
+        long weight = this.heapWeights.get(i), parentWeight;
+        int slot = this.heapSlots.get(i), parent;
+
+        while (i > 0 && (parentWeight = this.heapWeights.get(parent = (i - 1) / this.arity)) < weight) {
+            // move parent down into the hole
+            this.place(i, parentWeight, this.heapSlots.get(parent));
+            i = parent;
+        }
+
+        this.place(i, weight, slot);
+    }
+
+    /**
+     * Changes weight of neighborhood by delta and heapifies, given slot of its node. O(d log_d n).
+     *
+     * @param slot  - slot of node.
+     * @param delta - change in weight.
+     */
+    private void changeKey(int slot, long delta) {
+        int i = this.positions.get(slot);
+
+        this.heapWeights.set(i, this.heapWeights.get(i) + delta);
+
+        if (delta > 0) {
+            this.heapifyUp(i);
+        } else if (delta < 0) {
+            this.heapifyDown(i);
+        }
+    }
+
+    /**
+     * Deletes neighborhood from heap, given slot of its node. O(d log_d n).
+     *
+     * @param slot - slot of node.
+     */
+    private void deleteFromHeap(int slot) {
+        int i = this.positions.get(slot);
+        long deletedW = this.heapWeights.get(i), replacedW = this.heapWeights.get(this.heapSize - 1);
+
+        // decrement size by 1
+        this.heapSize--;
+
+        // move last into the hole, and heapify as needed
+        if (i != this.heapSize) {
+            this.place(i, replacedW, this.heapSlots.get(this.heapSize));
+
+            if (replacedW > deletedW) {
+                this.heapifyUp(i);
+            } else if (replacedW < deletedW) {
+                this.heapifyDown(i);
+            }
+        }
+    }
+
+    /**
+     * Returns a new node object with the id and weight of the node of given slot. O(1).
+     *
+     * @param slot - slot of node.
+     * @return node object.
+     */
+    private Graph.Node getNode(int slot) {
+        return new Graph.Node(this.ids.get(slot), this.weights.get(slot));
+    }
+
+    //QUERIES-----------------------------------------------------------------------------------------------------------
+
+    /**
+     * This method returns a node with the id and weight of the node in the graph with the maximum neighborhood
+     * weight, or null if graph is empty. O(1).
+     *
+     * @return a Node object representing the correct node. If there is no node in the graph, returns 'null'.
+     */
+    @Override
+    public Graph.Node maxNeighborhoodWeight() {
+        return this.numNodes == 0 ? null : this.getNode(this.heapSlots.get(0));
+    }
+
+    /**
+     * This method returns nodes with the ids and weights of the k nodes in the graph with the maximum neighborhood
+     * weights, from heaviest to lightest, or of all nodes of the graph if there are less than k. Walks the heap from
+     * the root while keeping the unvisited children of visited positions in a frontier max heap, as Graph.topK does.
+     * The frontier is kept in direct memory and reused by later calls. The graph is not changed. O(dk log k).
+     *
+     * @param k - number of nodes to return.
+     * @return an array of the nodes with the k maximum neighborhood weights.
+     */
+    @Override
+    public Graph.Node[] topK(int k) {
+        Graph.Node[] nodes = new Graph.Node[Math.max(0, Math.min(k, this.numNodes))];
+        IntArray frontier = this.frontier;
+        int frontierSize = 0, i, child, lastChild, j, max, tmp;
+
+        if (nodes.length == 0) {
+            return nodes;
+        }
+
+        // frontier holds at most d-1 more positions than the number of nodes taken, and at most every position
+        frontier.ensureCapacity(Math.min((long) nodes.length * this.arity + 1, this.heapSize));
+
+        frontier.set(frontierSize++, 0);
+
+        for (int taken = 0; taken < nodes.length; taken++) {
+            // pop heaviest position of frontier
+            i = frontier.get(0);
+            frontier.set(0, frontier.get(--frontierSize));
+
+            for (j = 0; ; j = max) {
+                max = j;
+
+                if (2 * j + 1 < frontierSize &&
+                        this.heapWeights.get(frontier.get(2 * j + 1)) > this.heapWeights.get(frontier.get(max))) {
+                    max = 2 * j + 1;
+                }
+
+                if (2 * j + 2 < frontierSize &&
+                        this.heapWeights.get(frontier.get(2 * j + 2)) > this.heapWeights.get(frontier.get(max))) {
+                    max = 2 * j + 2;
+                }
+
+                if (max == j) {
+                    break;
+                }
+
+                tmp = frontier.get(j);
+                frontier.set(j, frontier.get(max));
+                frontier.set(max, tmp);
+            }
+
+            nodes[taken] = this.getNode(this.heapSlots.get(i));
+
+            // push children of popped position
+            for (child = this.arity * i + 1, lastChild = Math.min(child + this.arity, this.heapSize);
+                 child < lastChild; child++) {
+                for (j = frontierSize++; j > 0 && this.heapWeights.get(frontier.get((j - 1) / 2)) <
+                        this.heapWeights.get(child); j = (j - 1) / 2) {
+                    frontier.set(j, frontier.get((j - 1) / 2));
+                }
+
+                frontier.set(j, child);
+            }
+        }
+
+        return nodes;
+    }
+
+    /**
+     * Given a node id of a node in the graph, this method returns the neighborhood weight of that node.
+     * O(1) - Expected.
+     *
+     * @param node_id - an id of a node.
+     * @return the neighborhood weight of the node of id 'node_id' if such a node exists in the graph.
+     * Otherwise, the function returns -1.
+     * @throws ArithmeticException if the neighborhood weight does not fit in an int,
+     *                             use getNeighborhoodWeightLong for such weights.
+     */
+    @Override
+    public int getNeighborhoodWeight(int node_id) {
+        long weight = this.getNeighborhoodWeightLong(node_id);
+
+        return weight == -1 ? -1 : Math.toIntExact(weight);
+    }
+
+    /**
+     * Given a node id of a node in the graph, this method returns the neighborhood weight of that node as a long.
+     * O(1) - Expected.
+     *
+     * @param node_id - an id of a node.
+     * @return the neighborhood weight of the node of id 'node_id' if such a node exists in the graph.
+     * Otherwise, the function returns -1.
+     */
+    @Override
+    public long getNeighborhoodWeightLong(int node_id) {
+        int slot = this.getSlot(node_id);
+
+        return slot == NIL ? -1 : this.heapWeights.get(this.positions.get(slot));
+    }
+
+    /**
+     * Given a node id, this method returns whether a node of that id exists in the graph. O(1) - Expected.
+     *
+     * @param node_id - an id of a node.
+     * @return 'true' if a node of id 'node_id' exists in the graph, otherwise 'false'.
+     */
+    @Override
+    public boolean containsNode(int node_id) {
+        return this.getSlot(node_id) != NIL;
+    }
+
+    /**
+     * Given the ids of two nodes, returns whether there is an edge between them in the graph. O(1) - Expected.
+     *
+     * @param node1_id - the id of the first node.
+     * @param node2_id - the id of the second node.
+     * @return 'true' if there is an edge between the nodes, otherwise 'false'.
+     */
+    @Override
+    public boolean hasEdge(int node1_id, int node2_id) {
+        return node1_id != node2_id && this.getEdge(node1_id, node2_id) != NIL;
+    }
+
+    /**
+     * Given the id of a node in the graph, passes the id of each of its neighbors to action, in no particular order.
+     * The graph must not be mutated by action. Returns the number of neighbors, or -1 if no such node exists.
+     * O(d) - Expected.
+     *
+     * @param node_id - an id of a node.
+     * @param action  - action to perform on each neighbor id.
+     * @return the number of neighbors of the node, or -1.
+     */
+    @Override
+    public int forEachNeighbor(int node_id, IntConsumer action) {
+        int slot = this.getSlot(node_id), degree = 0;
+
+        if (slot == NIL) {
+            return -1;
+        }
+
+        for (int edge = this.firstEdges.get(slot); edge != NIL; edge = this.next.get(edge)) {
+            action.accept(this.ids.get(this.neighborSlots.get(edge)));
+            degree++;
+        }
+
+        return degree;
+    }
+
+    /**
+     * Given the id of a node in the graph, writes the ids of its neighbors to dst, in no particular order, as many as
+     * fit. Returns the number of neighbors, which may exceed the length of dst, so that a caller may grow dst and
+     * retry, or -1 if no such node exists. O(d) - Expected.
+     *
+     * @param node_id - an id of a node.
+     * @param dst     - array to write neighbor ids to.
+     * @return the number of neighbors of the node, or -1.
+     */
+    @Override
+    public int neighbors(int node_id, int[] dst) {
+        int slot = this.getSlot(node_id), degree = 0;
+
+        if (slot == NIL) {
+            return -1;
+        }
+
+        for (int edge = this.firstEdges.get(slot); edge != NIL; edge = this.next.get(edge)) {
+            if (degree < dst.length) {
+                dst[degree] = this.ids.get(this.neighborSlots.get(edge));
+            }
+
+            degree++;
+        }
+
+        return degree;
+    }
+
+    /**
+     * Return number of nodes in graph. O(1).
+     *
+     * @return number of nodes in graph
+     */
+    @Override
+    public int getNumNodes() {
+        return this.numNodes;
+    }
+
+    /**
+     * Return number of edges in graph. O(1).
+     *
+     * @return number of edges in graph
+     */
+    @Override
+    public int getNumEdges() {
+        return this.numEdges;
+    }
+
+    //MUTATIONS---------------------------------------------------------------------------------------------------------
+
+    /**
+     * This function adds an edge between the two nodes whose ids are specified.
+     * If one of these nodes is not in the graph, the two nodes are the same node or the edge is already in the graph,
+     * the function does nothing. Returns true if edge added, otherwise returns false. O(log n) - Expected.
+     *
+     * @param node1_id - the id of the first node.
+     * @param node2_id - the id of the second node.
+     * @return returns 'true' if the function added an edge, otherwise returns 'false'.
+     */
+    @Override
+    public boolean addEdge(int node1_id, int node2_id) {
+        int slot1, slot2, edge;
+
+        if (
+                node1_id == node2_id ||
+                        (slot1 = this.getSlot(node1_id)) == NIL ||
+                        (slot2 = this.getSlot(node2_id)) == NIL ||
+                        this.getEdge(node1_id, node2_id) != NIL
+        ) {
+            return false;
+        }
+
+        // add pair of reciprocal edges
+        edge = this.allocatePair();
+
+        this.neighborSlots.set(edge, slot2);
+        this.neighborSlots.set(edge ^ 1, slot1);
+        this.link(slot1, edge);
+        this.link(slot2, edge ^ 1);
+
+        this.edgeTable.insert(ProbingHashTable.getPairKey(node1_id, node2_id), node1_id < node2_id ? edge : edge ^ 1);
+
+        // update neighborhood weight
+        this.changeKey(slot1, this.weights.get(slot2));
+        this.changeKey(slot2, this.weights.get(slot1));
+
+        // increment numEdges by 1
+        this.numEdges++;
+
+        return true;
+    }
+
+    /**
+     * This function adds an edge between each pair of nodes whose ids are given at the same index of the two arrays,
+     * skipping pairs that addEdge would not add. O(k log n) for k pairs - Expected.
+     *
+     * @param node1_ids - the ids of the first nodes.
+     * @param node2_ids - the ids of the second nodes.
+     * @return the number of edges added.
+     * @throws IllegalArgumentException if the arrays are not of the same length.
+     */
+    @Override
+    public int addEdges(int[] node1_ids, int[] node2_ids) {
+        if (node1_ids.length != node2_ids.length) {
+            throw new IllegalArgumentException("node id arrays must be of the same length");
+        }
+
+        return this.addEdges(node1_ids, node2_ids, node1_ids.length);
+    }
+
+    /**
+     * This function adds an edge between each pair of nodes whose ids are given at the same index of the first count
+     * cells of the two arrays, skipping pairs that addEdge would not add. O(k log n) for k = count - Expected.
+     *
+     * @param node1_ids - the ids of the first nodes.
+     * @param node2_ids - the ids of the second nodes.
+     * @param count     - the number of pairs.
+     * @return the number of edges added.
+     */
+    @Override
+    public int addEdges(int[] node1_ids, int[] node2_ids, int count) {
+        int added = 0;
+
+        for (int i = 0; i < count; i++) {
+            if (this.addEdge(node1_ids[i], node2_ids[i])) {
+                added++;
+            }
+        }
+
+        return added;
+    }
+
+    /**
+     * This function adds a node with no edges to the graph, copying its id and weight.
+     * If a node with the same id is already in the graph, the function does nothing.
+     * Returns true if node added, otherwise returns false. O(log n) - Expected amortized.
+     *
+     * @param node - the node to add.
+     * @return returns 'true' if the function added a node, otherwise returns 'false'.
+     */
+    @Override
+    public boolean addNode(Graph.Node node) {
+        if (this.getSlot(node.getId()) != NIL) {
+            return false;
+        }
+
+        int slot = this.allocateSlot();
+
+        this.ids.set(slot, node.getId());
+        this.weights.set(slot, node.getWeight());
+        this.firstEdges.set(slot, NIL);
+
+        // insert node neighborhood into max heap
+        this.place(this.heapSize++, node.getWeight(), slot);
+        this.heapifyUp(this.heapSize - 1);
+
+        this.nodeTable.insert(OffHeapGraph.getNodeKey(node.getId()), slot);
+
+        // increment numNodes by 1
+        this.numNodes++;
+
+        return true;
+    }
+
+    /**
+     * Given the id of a node in the graph, deletes the node of that id from the graph, if it exists.
+     * Returns true if node deleted, otherwise returns false. O((d+1) log n) - Expected.
+     *
+     * @param node_id - the id of the node to delete.
+     * @return returns 'true' if the function deleted a node, otherwise returns 'false'
+     */
+    @Override
+    public boolean deleteNode(int node_id) {
+        int slot = this.getSlot(node_id), neighbor;
+
+        if (slot == NIL) {
+            return false;
+        }
+
+        long weight = this.weights.get(slot);
+
+        for (int edge = this.firstEdges.get(slot), nextEdge; edge != NIL; edge = nextEdge) {
+            nextEdge = this.next.get(edge);
+            neighbor = this.neighborSlots.get(edge);
+
+            // delete reciprocal edges from all neighbors
+            this.unlink(neighbor, edge ^ 1);
+            this.freePair(edge);
+            this.edgeTable.delete(ProbingHashTable.getPairKey(node_id, this.ids.get(neighbor)));
+
+            // update neighbors weight
+            this.changeKey(neighbor, -weight);
+
+            // decrease numEdges by 1
+            this.numEdges--;
+        }
+
+        this.deleteFromHeap(slot);
+        this.nodeTable.delete(OffHeapGraph.getNodeKey(node_id));
+        this.freeSlot(slot);
+
+        // decrease numNodes by 1
+        this.numNodes--;
+
+        return true;
+    }
+
+    /**
+     * Given ids of nodes in the graph, deletes the nodes of those ids from the graph, skipping ids of nodes that do
+     * not exist. O((k+d) log n) for k ids and d deleted edges - Expected.
+     *
+     * @param node_ids - the ids of the nodes to delete.
+     * @return the number of nodes deleted.
+     */
+    @Override
+    public int deleteNodes(int[] node_ids) {
+        return this.deleteNodes(node_ids, node_ids.length);
+    }
+
+    /**
+     * Given ids of nodes in the graph in the first count cells of an array, deletes the nodes of those ids from the
+     * graph, like deleteNodes. O((k+d) log n) for k = count and d deleted edges - Expected.
+     *
+     * @param node_ids - the ids of the nodes to delete.
+     * @param count    - the number of ids.
+     * @return the number of nodes deleted.
+     */
+    @Override
+    public int deleteNodes(int[] node_ids, int count) {
+        int deleted = 0;
+
+        for (int i = 0; i < count; i++) {
+            if (this.deleteNode(node_ids[i])) {
+                deleted++;
+            }
+        }
+
+        return deleted;
+    }
+
+    /**
+     * Given the ids of two nodes in the graph, deletes the edge between them, if it exists.
+     * Returns true if edge deleted, otherwise returns false. O(log n) - Expected.
+     *
+     * @param node1_id - the id of the first node.
+     * @param node2_id - the id of the second node.
+     * @return returns 'true' if the function deleted an edge, otherwise returns 'false'.
+     */
+    @Override
+    public boolean deleteEdge(int node1_id, int node2_id) {
+        int edge;
+
+        if (node1_id == node2_id || (edge = this.getEdge(node1_id, node2_id)) == NIL) {
+            return false;
+        }
+
+        int slot1 = this.neighborSlots.get(edge ^ 1), slot2 = this.neighborSlots.get(edge);
+
+        // delete pair of reciprocal edges
+        this.unlink(slot1, edge);
+        this.unlink(slot2, edge ^ 1);
+        this.freePair(edge);
+        this.edgeTable.delete(ProbingHashTable.getPairKey(node1_id, node2_id));
+
+        // update neighborhood weight
+        this.changeKey(slot1, -this.weights.get(slot2));
+        this.changeKey(slot2, -this.weights.get(slot1));
+
+        // decrease numEdges by 1
+        this.numEdges--;
+
+        return true;
+    }
+
+    /**
+     * Given the id of a node in the graph, changes the weight of the node of that id, and so the neighborhood weights
+     * of the node and of all its neighbors. Returns true if node updated, otherwise returns false.
+     * O((d+1) log n) - Expected.
+     *
+     * @param node_id - the id of the node to update.
+     * @param weight  - the new weight of the node.
+     * @return returns 'true' if the function updated a node, otherwise returns 'false'.
+     */
+    @Override
+    public boolean updateNodeWeight(int node_id, int weight) {
+        int slot = this.getSlot(node_id);
+
+        if (slot == NIL) {
+            return false;
+        }
+
+        long delta = (long) weight - this.weights.get(slot);
+
+        this.weights.set(slot, weight);
+
+        if (delta != 0) {
+            // update neighborhood weight of node and of all its neighbors
+            this.changeKey(slot, delta);
+
+            for (int edge = this.firstEdges.get(slot); edge != NIL; edge = this.next.get(edge)) {
+                this.changeKey(this.neighborSlots.get(edge), delta);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Given ids of nodes in the graph and their new weights at the same index of the two arrays, changes the weights
+     * of the nodes of those ids, skipping ids of nodes that do not exist. O((k+d) log n) for k ids of nodes of d
+     * neighbors in total - Expected.
+     *
+     * @param node_ids - the ids of the nodes to update.
+     * @param weights  - the new weights of the nodes.
+     * @return the number of nodes updated.
+     * @throws IllegalArgumentException if the arrays are not of the same length.
+     */
+    @Override
+    public int updateNodeWeights(int[] node_ids, int[] weights) {
+        if (node_ids.length != weights.length) {
+            throw new IllegalArgumentException("node id and weight arrays must be of the same length");
+        }
+
+        return this.updateNodeWeights(node_ids, weights, node_ids.length);
+    }
+
+    /**
+     * Given ids of nodes in the graph and their new weights at the same index of the first count cells of the two
+     * arrays, changes the weights of the nodes of those ids, like updateNodeWeights.
+     * O((k+d) log n) for k = count and d neighbors - Expected.
+     *
+     * @param node_ids - the ids of the nodes to update.
+     * @param weights  - the new weights of the nodes.
+     * @param count    - the number of ids.
+     * @return the number of nodes updated.
+     */
+    @Override
+    public int updateNodeWeights(int[] node_ids, int[] weights, int count) {
+        int updated = 0;
+
+        for (int i = 0; i < count; i++) {
+            if (this.updateNodeWeight(node_ids[i], weights[i])) {
+                updated++;
+            }
+        }
+
+        return updated;
+    }
+}
@@ -0,0 +1,355 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class represents an append only log of the mutations of a graph, used to recover the mutations made since the
+ * last snapshot after a crash.
+ * <p>
+ * Records are buffered in memory and written and forced to disk together, once every groupCommitSize operations or
+ * when the oldest buffered record is older than maxCommitDelayNanos, so the cost of a force is shared by a whole
+ * group of operations. The delay is enforced by a daemon flusher thread that commits a group once its oldest record
+ * reaches that age, even if no further operation is logged. Operations of a group that was not committed yet are
+ * lost on a crash; call commit to make everything logged so far durable.
+ * <p>
+ * A log is attached to a graph with Graph.setOperationLog, after which every mutation that changed the graph is
+ * logged. The graph logs a mutation after applying it, so a mutation that throws UncheckedIOException because the
+ * log failed was applied to the graph, but may not be in the log. Replay applies a log to a graph through the batch
+ * operations of the graph.
+ * <p>
+ * Logging and committing are synchronized with the flusher, and so may be called by any thread.
+ */
+public class OperationLog implements Closeable {
+    private static final byte ADD_EDGE = 1;
+    private static final byte ADD_NODE = 2;
+    private static final byte DELETE_NODE = 3;
+    private static final byte DELETE_EDGE = 4;
+    private static final byte UPDATE_NODE_WEIGHT = 5;
+
+    private static final int RECORD_BYTES = 1 + 2 * Integer.BYTES;
+    private static final int BUFFER_BYTES = 1 << 16;
+    private static final int REPLAY_BATCH = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    private final int groupCommitSize;
+    private final long maxCommitDelayNanos;
+
+    private int uncommitted;
+    private long oldestUncommittedNanos;
+
+    private boolean closed;
+    private IOException flushFailure;
+
+    /**
+     * Opens the log at given path for appending, creating it if it does not exist.
+     *
+     * @param path                - path of log file.
+     * @param groupCommitSize     - number of operations after which the log is committed, at least 1.
+     * @param maxCommitDelayNanos - age of the oldest uncommitted operation after which the log is committed.
+     * @throws IOException if opening fails.
+     */
+    public OperationLog(Path path, int groupCommitSize, long maxCommitDelayNanos) throws IOException {
+        if (groupCommitSize < 1) {
+            throw new IllegalArgumentException("group commit size must be at least 1");
+        }
+
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+        this.groupCommitSize = groupCommitSize;
+        this.maxCommitDelayNanos = maxCommitDelayNanos;
+
+        Thread flusher = new Thread(this::flush, "operation-log-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Commits every group once its oldest record is maxCommitDelayNanos old, until the log is closed. Run by the
+     * flusher thread, which waits while nothing is uncommitted. A failure to commit is rethrown by the next call
+     * that logs or commits.
+     */
+    private synchronized void flush() {
+        long remaining;
+
+        try {
+            while (!this.closed) {
+                if (this.uncommitted == 0 || this.flushFailure != null) {
+                    this.wait();
+                } else if ((remaining = this.maxCommitDelayNanos - (System.nanoTime() - this.oldestUncommittedNanos))
+                        > 0) {
+                    this.wait(remaining / 1_000_000, (int) (remaining % 1_000_000));
+                } else {
+                    try {
+                        this.commit();
+                    } catch (IOException e) {
+                        this.flushFailure = e;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //LOGGING-----------------------------------------------------------------------------------------------------------
+
+    /**
+     * Logs addition of an edge. O(1) - Amortized.
+     *
+     * @param node1_id - the id of the first node.
+     * @param node2_id - the id of the second node.
+     */
+    public void logAddEdge(int node1_id, int node2_id) {
+        this.append(ADD_EDGE, node1_id, node2_id);
+    }
+
+    /**
+     * Logs addition of a node. O(1) - Amortized.
+     *
+     * @param node_id - the id of the node.
+     * @param weight  - the weight of the node.
+     */
+    public void logAddNode(int node_id, int weight) {
+        this.append(ADD_NODE, node_id, weight);
+    }
+
+    /**
+     * Logs deletion of a node. O(1) - Amortized.
+     *
+     * @param node_id - the id of the node.
+     */
+    public void logDeleteNode(int node_id) {
+        this.append(DELETE_NODE, node_id, 0);
+    }
+
+    /**
+     * Logs deletion of an edge. O(1) - Amortized.
+     *
+     * @param node1_id - the id of the first node.
+     * @param node2_id - the id of the second node.
+     */
+    public void logDeleteEdge(int node1_id, int node2_id) {
+        this.append(DELETE_EDGE, node1_id, node2_id);
+    }
+
+    /**
+     * Logs update of the weight of a node. O(1) - Amortized.
+     *
+     * @param node_id - the id of the node.
+     * @param weight  - the new weight of the node.
+     */
+    public void logUpdateNodeWeight(int node_id, int weight) {
+        this.append(UPDATE_NODE_WEIGHT, node_id, weight);
+    }
+
+    /**
+     * Appends a record to the buffer, writing the buffer when full and committing when the group is complete.
+     * O(1) - Amortized.
+     *
+     * @param type - type of record.
+     * @param arg1 - first argument of record.
+     * @param arg2 - second argument of record.
+     * @throws UncheckedIOException if writing fails.
+     */
+    private synchronized void append(byte type, int arg1, int arg2) {
+        try {
+            this.checkFlushFailure();
+
+            if (this.buffer.remaining() < RECORD_BYTES) {
+                this.write();
+            }
+
+            this.buffer.put(type).putInt(arg1).putInt(arg2);
+
+            if (this.uncommitted++ == 0) {
+                this.oldestUncommittedNanos = System.nanoTime();
+
+                // the flusher waits for a group to start
+                this.notify();
+            }
+
+            if (this.uncommitted >= this.groupCommitSize ||
+                    System.nanoTime() - this.oldestUncommittedNanos >= this.maxCommitDelayNanos) {
+                this.commit();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the buffer to the file, without forcing it to disk.
+     *
+     * @throws IOException if writing fails.
+     */
+    private void write() throws IOException {
+        this.buffer.flip();
+
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+
+        this.buffer.clear();
+    }
+
+    /**
+     * Throws the failure of the flusher to commit, if any.
+     *
+     * @throws IOException if the flusher failed to commit.
+     */
+    private void checkFlushFailure() throws IOException {
+        if (this.flushFailure != null) {
+            throw new IOException("operation log commit failed", this.flushFailure);
+        }
+    }
+
+    /**
+     * Writes all logged operations to the file and forces them to disk, making them durable.
+     *
+     * @throws IOException if writing fails.
+     */
+    public synchronized void commit() throws IOException {
+        this.checkFlushFailure();
+        this.write();
+        this.channel.force(false);
+
+        this.uncommitted = 0;
+    }
+
+    /**
+     * Discards all logged operations, typically right after writing a snapshot that includes them.
+     *
+     * @throws IOException if truncating fails.
+     */
+    public synchronized void truncate() throws IOException {
+        this.buffer.clear();
+        this.channel.truncate(0);
+        this.channel.force(true);
+
+        this.uncommitted = 0;
+    }
+
+    /**
+     * Commits and closes the log, and stops the flusher.
+     *
+     * @throws IOException if writing fails.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+
+        try {
+            this.commit();
+        } finally {
+            this.closed = true;
+            this.notify();
+            this.channel.close();
+        }
+    }
+
+    //REPLAY------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Applies the operations of the log at given path to graph, in order. Runs of edge additions, of node deletions
+     * and of node weight updates are applied through Graph.addEdges, Graph.deleteNodes and Graph.updateNodeWeights,
+     * so the heap is repaired once per run.
+     * An incomplete last record, left by a crash during a write, is ignored.
+     * The graph must not have an operation log attached. O(k log n) for k operations - Expected.
+     *
+     * @param graph - graph to apply operations to, e.g. as read from the last snapshot.
+     * @param path  - path of log file.
+     * @return the number of operations applied.
+     * @throws IOException if reading fails.
+     */
+    public static long replay(Graph graph, Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        int[] ids1 = new int[REPLAY_BATCH], ids2 = new int[REPLAY_BATCH];
+        int batchLength = 0;
+        byte batchType = 0, type;
+        long replayed = 0;
+
+        // start with an empty buffer
+        buffer.limit(0);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (true) {
+                if (buffer.remaining() < RECORD_BYTES) {
+                    buffer.compact();
+
+                    // end of file, an incomplete record left in buffer is ignored
+                    if (channel.read(buffer) < 0) {
+                        break;
+                    }
+
+                    buffer.flip();
+                    continue;
+                }
+
+                type = buffer.get();
+
+                // a run ends when the type changes or the batch is full
+                if (batchLength > 0 && (type != batchType || batchLength == REPLAY_BATCH)) {
+                    OperationLog.applyBatch(graph, batchType, ids1, ids2, batchLength);
+                    batchLength = 0;
+                }
+
+                switch (type) {
+                    case ADD_EDGE:
+                    case DELETE_NODE:
+                    case UPDATE_NODE_WEIGHT:
+                        batchType = type;
+                        ids1[batchLength] = buffer.getInt();
+                        ids2[batchLength++] = buffer.getInt();
+                        break;
+                    case ADD_NODE:
+                        graph.addNode(new Graph.Node(buffer.getInt(), buffer.getInt()));
+                        break;
+                    case DELETE_EDGE:
+                        graph.deleteEdge(buffer.getInt(), buffer.getInt());
+                        break;
+                    default:
+                        throw new IOException("corrupt operation log: " + path);
+                }
+
+                replayed++;
+            }
+        }
+
+        OperationLog.applyBatch(graph, batchType, ids1, ids2, batchLength);
+
+        return replayed;
+    }
+
+    /**
+     * Applies a run of edge additions, node deletions or node weight updates to graph.
+     *
+     * @param graph       - graph.
+     * @param type        - type of records in run.
+     * @param ids1        - first arguments of records.
+     * @param ids2        - second arguments of records.
+     * @param batchLength - number of records in run.
+     */
+    private static void applyBatch(Graph graph, byte type, int[] ids1, int[] ids2, int batchLength) {
+        if (batchLength == 0) {
+            return;
+        }
+
+        if (type == ADD_EDGE) {
+            graph.addEdges(ids1, ids2, batchLength);
+        } else if (type == DELETE_NODE) {
+            graph.deleteNodes(ids1, batchLength);
+        } else {
+            graph.updateNodeWeights(ids1, ids2, batchLength);
+        }
+    }
+}
@@ -0,0 +1,364 @@
+import java.util.Random;
+
+/**
+ * This class represents the probing and migration of an open addressing hash table with long keys, over storage of
+ * keys and values provided by a subclass through slot accessors, as shared by the node hash table of Graph, on the Java
+ * heap, and the hash tables of OffHeapGraph, in direct memory. The storage holds two tables, addressed as CURRENT and
+ * OLD: the current table, and while migrating, the table being migrated into it.
+ * <p>
+ * Collisions are resolved by linear probing, and deletions shift subsequent entries backward so that no tombstones are
+ * needed. When the table becomes half full it doubles, and the entries of the old table are moved to the new table a
+ * few slots at a time by the following insertions and deletions, so no single operation pays for a full rehash.
+ * <p>
+ * Tables are powers of two, and keys are hashed by a multiply-add-shift function, (a*k+b) mod 2^64 divided by
+ * 2^(64-l) for a table of 2^l slots, with a and b drawn at random for every table. If an insertion probes more than
+ * MAX_PROBE_LENGTH_FACTOR * l slots, far beyond what random keys produce at half load, the keys cluster under the
+ * current function, and the table is rehashed into a table of the same size with a new function, migrated
+ * incrementally as when doubling. Rehashing is allowed once per size/2 insertions, so its cost stays amortized O(1)
+ * per insertion.
+ */
+abstract class ProbingHashTable {
+    static final int NIL = -1;
+    static final int MAX_BITS = 30;
+
+    // tables of the storage
+    static final int CURRENT = 0;
+    static final int OLD = 1;
+
+    // flag of a slot of the old table, as returned by find
+    static final int OLD_SLOT = 1 << MAX_BITS;
+
+    private static final int MIGRATION_STEPS = 4;
+    private static final int MAX_PROBE_LENGTH_FACTOR = 4;
+
+    private int bits;
+    private long a;
+    private long b;
+
+    private boolean migrating;
+    private int oldBits;
+    private long oldA;
+    private long oldB;
+    private int migrated;
+
+    private int size;
+    private int insertionsSinceRehash;
+
+    private final Random rand;
+
+    /**
+     * Creates a new hash table object with random multiply-add-shift hash function, given the number of keys it should
+     * hold. The table is kept at most half full. The subclass allocates its current table of getCapacity slots. O(1).
+     *
+     * @param size - number of keys.
+     */
+    ProbingHashTable(int size) {
+        this.bits = 1;
+
+        while (this.bits < MAX_BITS && (1 << this.bits) < 2 * (long) size) {
+            this.bits++;
+        }
+
+        this.rand = new Random();
+        this.a = this.rand.nextLong();
+        this.b = this.rand.nextLong();
+    }
+
+    //STORAGE-----------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns whether slot of table is empty. O(1).
+     *
+     * @param table - CURRENT or OLD.
+     * @param slot  - slot.
+     * @return 'true' if slot is empty, otherwise 'false'.
+     */
+    abstract boolean isEmpty(int table, int slot);
+
+    /**
+     * Returns key of non empty slot of table. O(1).
+     *
+     * @param table - CURRENT or OLD.
+     * @param slot  - slot.
+     * @return key.
+     */
+    abstract long getKey(int table, int slot);
+
+    /**
+     * Copies the key and value of non empty slot of table into slot of the current table. O(1).
+     *
+     * @param table - CURRENT or OLD.
+     * @param from  - slot of table.
+     * @param to    - slot of current table.
+     */
+    abstract void copy(int table, int from, int to);
+
+    /**
+     * Empties slot of table. O(1).
+     *
+     * @param table - CURRENT or OLD.
+     * @param slot  - slot.
+     */
+    abstract void clear(int table, int slot);
+
+    /**
+     * Makes the current table the old table, and allocates an empty current table of given size. O(capacity).
+     *
+     * @param capacity - number of slots of new table, a power of two.
+     */
+    abstract void allocate(int capacity);
+
+    /**
+     * Releases the old table, once migrated. O(1).
+     */
+    abstract void release();
+
+    /**
+     * Records the number of slots probed by a lookup, for a subclass that measures it. O(1).
+     *
+     * @param probeLength - number of slots probed.
+     */
+    void recordProbe(int probeLength) {
+    }
+
+    /**
+     * Records a rehash with a new hash function, for a subclass that counts them. O(1).
+     */
+    void recordRehash() {
+    }
+
+    //PROBING-----------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns key of the unordered pair of given ids, with the smaller id in the high half, never 0 for distinct ids.
+     * O(1).
+     *
+     * @param id1 - first id.
+     * @param id2 - second id.
+     * @return key of pair.
+     */
+    static long getPairKey(int id1, int id2) {
+        return id1 < id2 ?
+                ((long) id1 << 32) | (id2 & 0xFFFFFFFFL) :
+                ((long) id2 << 32) | (id1 & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns number of slots of the current table. O(1).
+     *
+     * @return number of slots.
+     */
+    int getCapacity() {
+        return 1 << this.bits;
+    }
+
+    /**
+     * Sets number of keys, for a subclass that filled the current table without insert. O(1).
+     *
+     * @param size - number of keys.
+     */
+    void setSize(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Returns home slot of key in the current table. O(1).
+     *
+     * @param key - key.
+     * @return home slot of key.
+     */
+    int getHome(long key) {
+        return (int) ((this.a * key + this.b) >>> (64 - this.bits));
+    }
+
+    /**
+     * Returns slot containing given key, or the empty slot ending its probe sequence, in given table.
+     * O(1) - Expected.
+     *
+     * @param table - CURRENT or OLD.
+     * @param key   - key.
+     * @return slot of key, or empty slot.
+     */
+    private int getSlot(int table, long key) {
+        int bits = table == CURRENT ? this.bits : this.oldBits, mask = (1 << bits) - 1, probeLength = 1;
+        int slot = table == CURRENT ? this.getHome(key) : (int) ((this.oldA * key + this.oldB) >>> (64 - bits));
+
+        while (!this.isEmpty(table, slot) && this.getKey(table, slot) != key) {
+            slot = (slot + 1) & mask;
+            probeLength++;
+        }
+
+        this.recordProbe(probeLength);
+
+        return slot;
+    }
+
+    /**
+     * Returns slot of the current table containing given key, or the slot of the old table containing it flagged
+     * with OLD_SLOT, or NIL if key is not in table. O(1) - Expected.
+     *
+     * @param key - key.
+     * @return slot of key, or NIL.
+     */
+    int find(long key) {
+        int slot = this.getSlot(CURRENT, key);
+
+        if (!this.isEmpty(CURRENT, slot)) {
+            return slot;
+        }
+
+        // key may not have been migrated yet
+        if (this.migrating && !this.isEmpty(OLD, slot = this.getSlot(OLD, key))) {
+            return slot | OLD_SLOT;
+        }
+
+        return NIL;
+    }
+
+    /**
+     * Migrates a few slots, doubling the table if it would become more than half full, and returns the empty slot of
+     * the current table to insert given key into, which must not be in table. The subclass stores the key and its
+     * value in the slot, then calls inserted. O(1) - Expected amortized.
+     *
+     * @param key - key.
+     * @return empty slot of current table.
+     * @throws IllegalStateException if the table is at its maximum size.
+     */
+    int reserve(long key) {
+        this.migrate(MIGRATION_STEPS);
+
+        if (2 * (this.size + 1L) > 1L << this.bits) {
+            if (this.bits == MAX_BITS) {
+                throw new IllegalStateException("too many keys");
+            }
+
+            this.rehash(this.bits + 1);
+        }
+
+        return this.getSlot(CURRENT, key);
+    }
+
+    /**
+     * Counts the key stored in slot returned by reserve, and rehashes with a new hash function if its probe sequence
+     * is too long. O(1) - Amortized.
+     *
+     * @param slot - slot of current table.
+     */
+    void inserted(int slot) {
+        int mask = (1 << this.bits) - 1, probeLength = ((slot - this.getHome(this.getKey(CURRENT, slot))) & mask) + 1;
+
+        this.size++;
+        this.insertionsSinceRehash++;
+
+        if (probeLength > MAX_PROBE_LENGTH_FACTOR * this.bits && 2 * this.insertionsSinceRehash >= this.size) {
+            this.rehash(this.bits);
+            this.recordRehash();
+        }
+    }
+
+    /**
+     * Deletes given key, if in table. O(1) - Expected.
+     *
+     * @param key - key.
+     */
+    void delete(long key) {
+        this.migrate(MIGRATION_STEPS);
+
+        int mask = (1 << this.bits) - 1, hole = this.getSlot(CURRENT, key), slot = hole, home;
+
+        if (this.isEmpty(CURRENT, hole)) {
+            // key may not have been migrated yet
+            if (this.migrating && !this.isEmpty(OLD, slot = this.getSlot(OLD, key))) {
+                this.evict(slot);
+                this.size--;
+            }
+
+            return;
+        }
+
+        // shift back every following entry of the probe run whose home slot is not between the hole and itself
+        while (!this.isEmpty(CURRENT, slot = (slot + 1) & mask)) {
+            home = this.getHome(this.getKey(CURRENT, slot));
+
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                this.copy(CURRENT, slot, hole);
+                hole = slot;
+            }
+        }
+
+        this.clear(CURRENT, hole);
+        this.size--;
+    }
+
+    //MIGRATION---------------------------------------------------------------------------------------------------------
+
+    /**
+     * Moves entry of slot of old table into the current table, without emptying the slot. O(1) - Expected.
+     *
+     * @param slot - slot of old table.
+     */
+    private void transfer(int slot) {
+        this.copy(OLD, slot, this.getSlot(CURRENT, this.getKey(OLD, slot)));
+    }
+
+    /**
+     * Empties slot of old table and moves every following entry of its probe run into the current table,
+     * so that no entry left in the old table has an empty slot on its probe sequence. O(1) - Expected.
+     *
+     * @param slot - slot of old table.
+     */
+    private void evict(int slot) {
+        int mask = (1 << this.oldBits) - 1;
+
+        this.clear(OLD, slot);
+
+        while (!this.isEmpty(OLD, slot = (slot + 1) & mask)) {
+            this.transfer(slot);
+            this.clear(OLD, slot);
+        }
+    }
+
+    /**
+     * Moves the entries of the next few slots of the old table into the current table, if migrating.
+     * O(steps) - Expected.
+     *
+     * @param steps - number of slots of old table to migrate.
+     */
+    private void migrate(int steps) {
+        for (; steps > 0 && this.migrating; steps--) {
+            if (!this.isEmpty(OLD, this.migrated)) {
+                this.transfer(this.migrated);
+                this.evict(this.migrated);
+            }
+
+            if (++this.migrated == 1 << this.oldBits) {
+                this.migrating = false;
+                this.release();
+            }
+        }
+    }
+
+    /**
+     * Replaces current table by a table of 2^bits slots with a new random hash function, and starts migrating the
+     * entries of the current table. O(capacity) - for allocating the new table.
+     *
+     * @param bits - log of number of slots of new table.
+     */
+    private void rehash(int bits) {
+        // finish previous migration, if any, before starting a new one
+        this.migrate(Integer.MAX_VALUE);
+
+        this.migrating = true;
+        this.oldBits = this.bits;
+        this.oldA = this.a;
+        this.oldB = this.b;
+        this.migrated = 0;
+
+        this.bits = bits;
+        this.a = this.rand.nextLong();
+        this.b = this.rand.nextLong();
+        this.allocate(1 << bits);
+
+        this.insertionsSinceRehash = 0;
+    }
+}
@@ -0,0 +1,300 @@
+import java.util.Arrays;
+
+/**
+ * This class represents the remote edges of the nodes of one part of a partitioned graph, each from a node of the part
+ * to a node of another part, as kept by the shards of ShardedGraph and the stripes of ConcurrentGraph, stored in
+ * parallel primitive arrays. The remote edges of every node form a doubly linked list threaded through the prev and
+ * next arrays.
+ * <p>
+ * An open addressing table with linear probing maps the key of the pair of ids of every remote edge to the edge,
+ * and the key of the pair of the id of a node with itself, which is never an edge, to the first edge of the node.
+ */
+final class RemoteEdges {
+    static final int NIL = -1;
+    static final long CONFIRMED = 0;
+
+    // by edge
+    private int[] nodeIds;
+    private int[] remoteIds;
+    private long[] requestIds;
+    private int[] prev;
+    private int[] next;
+    private int numUsed;
+    private int free;
+    private int numConfirmed;
+
+    // by table slot, empty if value is NIL
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int shift;
+
+    /**
+     * Creates a new empty set of remote edges. O(1).
+     */
+    RemoteEdges() {
+        this.nodeIds = new int[16];
+        this.remoteIds = new int[16];
+        this.requestIds = new long[16];
+        this.prev = new int[16];
+        this.next = new int[16];
+        this.free = NIL;
+
+        this.keys = new long[32];
+        this.values = new int[32];
+        this.shift = 64 - 5;
+
+        Arrays.fill(this.values, NIL);
+    }
+
+    /**
+     * Returns key of pair of ids. O(1).
+     *
+     * @param nodeId   - id of node.
+     * @param remoteId - id of remote node.
+     * @return key.
+     */
+    private static long getKey(int nodeId, int remoteId) {
+        return ((long) nodeId << 32) | (remoteId & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns slot of key in table, or of the empty slot it would be inserted into. O(1) - Expected.
+     *
+     * @param key - key.
+     * @return slot.
+     */
+    private int getSlot(long key) {
+        int mask = this.keys.length - 1, slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> this.shift);
+
+        while (this.values[slot] != NIL && this.keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    /**
+     * Returns value of key, or NIL. O(1) - Expected.
+     *
+     * @param key - key.
+     * @return value, or NIL.
+     */
+    private int get(long key) {
+        return this.values[this.getSlot(key)];
+    }
+
+    /**
+     * Sets value of key, doubling table if half full. O(1) - Amortized expected.
+     *
+     * @param key   - key.
+     * @param value - value, not NIL.
+     */
+    private void put(long key, int value) {
+        int slot = this.getSlot(key);
+
+        if (this.values[slot] == NIL) {
+            if (2 * (this.size + 1) > this.keys.length) {
+                this.grow();
+                slot = this.getSlot(key);
+            }
+
+            this.keys[slot] = key;
+            this.size++;
+        }
+
+        this.values[slot] = value;
+    }
+
+    /**
+     * Removes key, moving back later keys of its probe run into the gap. O(1) - Expected.
+     *
+     * @param key - key in table.
+     */
+    private void delete(long key) {
+        int mask = this.keys.length - 1, gap = this.getSlot(key), slot = gap, home;
+
+        this.values[gap] = NIL;
+        this.size--;
+
+        while (this.values[slot = (slot + 1) & mask] != NIL) {
+            home = (int) ((this.keys[slot] * 0x9E3779B97F4A7C15L) >>> this.shift);
+
+            // move key back if its home is not cyclically in (gap, slot]
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                this.keys[gap] = this.keys[slot];
+                this.values[gap] = this.values[slot];
+                this.values[slot] = NIL;
+                gap = slot;
+            }
+        }
+    }
+
+    /**
+     * Doubles table, reinserting all keys. O(size).
+     */
+    private void grow() {
+        long[] oldKeys = this.keys;
+        int[] oldValues = this.values;
+
+        this.keys = new long[2 * oldKeys.length];
+        this.values = new int[2 * oldKeys.length];
+        this.shift--;
+
+        Arrays.fill(this.values, NIL);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != NIL) {
+                int slot = this.getSlot(oldKeys[i]);
+
+                this.keys[slot] = oldKeys[i];
+                this.values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the remote edge between given nodes, or NIL. O(1) - Expected.
+     *
+     * @param nodeId   - id of node of part.
+     * @param remoteId - id of remote node.
+     * @return edge, or NIL.
+     */
+    int find(int nodeId, int remoteId) {
+        return this.get(RemoteEdges.getKey(nodeId, remoteId));
+    }
+
+    /**
+     * Returns the first remote edge of node, or NIL. O(1) - Expected.
+     *
+     * @param nodeId - id of node of part.
+     * @return edge, or NIL.
+     */
+    int first(int nodeId) {
+        return this.get(RemoteEdges.getKey(nodeId, nodeId));
+    }
+
+    /**
+     * Adds remote edge between given nodes, pending until confirmed if given a request id. Arrays double if full.
+     * O(1) - Amortized expected.
+     *
+     * @param nodeId    - id of node of part.
+     * @param remoteId  - id of remote node.
+     * @param requestId - id of pending request, or CONFIRMED.
+     */
+    void add(int nodeId, int remoteId, long requestId) {
+        int edge = this.free, first = this.first(nodeId);
+
+        if (edge != NIL) {
+            this.free = this.next[edge];
+        } else {
+            if (this.numUsed == this.nodeIds.length) {
+                int capacity = 2 * this.numUsed;
+
+                this.nodeIds = Arrays.copyOf(this.nodeIds, capacity);
+                this.remoteIds = Arrays.copyOf(this.remoteIds, capacity);
+                this.requestIds = Arrays.copyOf(this.requestIds, capacity);
+                this.prev = Arrays.copyOf(this.prev, capacity);
+                this.next = Arrays.copyOf(this.next, capacity);
+            }
+
+            edge = this.numUsed++;
+        }
+
+        this.nodeIds[edge] = nodeId;
+        this.remoteIds[edge] = remoteId;
+        this.requestIds[edge] = requestId;
+        this.prev[edge] = NIL;
+        this.next[edge] = first;
+
+        if (first != NIL) {
+            this.prev[first] = edge;
+        }
+
+        this.put(RemoteEdges.getKey(nodeId, nodeId), edge);
+        this.put(RemoteEdges.getKey(nodeId, remoteId), edge);
+
+        if (requestId == CONFIRMED) {
+            this.numConfirmed++;
+        }
+    }
+
+    /**
+     * Confirms pending remote edge. O(1).
+     *
+     * @param edge - pending edge.
+     */
+    void confirm(int edge) {
+        this.requestIds[edge] = CONFIRMED;
+        this.numConfirmed++;
+    }
+
+    /**
+     * Removes remote edge. O(1) - Expected.
+     *
+     * @param edge - edge.
+     */
+    void remove(int edge) {
+        int nodeId = this.nodeIds[edge];
+
+        if (this.prev[edge] != NIL) {
+            this.next[this.prev[edge]] = this.next[edge];
+        } else if (this.next[edge] != NIL) {
+            this.put(RemoteEdges.getKey(nodeId, nodeId), this.next[edge]);
+        } else {
+            this.delete(RemoteEdges.getKey(nodeId, nodeId));
+        }
+
+        if (this.next[edge] != NIL) {
+            this.prev[this.next[edge]] = this.prev[edge];
+        }
+
+        this.delete(RemoteEdges.getKey(nodeId, this.remoteIds[edge]));
+
+        if (this.requestIds[edge] == CONFIRMED) {
+            this.numConfirmed--;
+        }
+
+        this.next[edge] = this.free;
+        this.free = edge;
+    }
+
+    /**
+     * Returns id of remote node of remote edge. O(1).
+     *
+     * @param edge - edge.
+     * @return id of remote node.
+     */
+    int getRemoteId(int edge) {
+        return this.remoteIds[edge];
+    }
+
+    /**
+     * Returns id of pending request of remote edge, or CONFIRMED. O(1).
+     *
+     * @param edge - edge.
+     * @return id of request, or CONFIRMED.
+     */
+    long getRequestId(int edge) {
+        return this.requestIds[edge];
+    }
+
+    /**
+     * Returns the next remote edge of the node of remote edge, or NIL. O(1).
+     *
+     * @param edge - edge.
+     * @return next edge, or NIL.
+     */
+    int getNext(int edge) {
+        return this.next[edge];
+    }
+
+    /**
+     * Returns number of confirmed remote edges. O(1).
+     *
+     * @return number of confirmed remote edges.
+     */
+    int getNumConfirmed() {
+        return this.numConfirmed;
+    }
+}
@@ -0,0 +1,682 @@
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class represents a graph partitioned across several Graph shards, each owned by a worker thread, so that
+ * mutations are applied on several cores at once.
+ * <p>
+ * Every node belongs to the shard chosen by a hash of its id, and is stored in the Graph of that shard together with
+ * the edges to nodes of the same shard. An edge between nodes of different shards is not stored in either Graph: each
+ * shard keeps a remote edge to the node of the other shard and adds the weight of that node to the neighborhood
+ * weight of its own node, so the neighborhood weights in every shard are the same as in a single graph.
+ * <p>
+ * Mutations are routed as messages to the shard of their node, buffered per shard and handed over in batches through
+ * a queue of each worker. A cross shard edge is added by a handshake: the shard of its lower id node records a
+ * pending remote edge and sends a request with the weight of its node, the other shard accepts it with the weight of
+ * its own node if that node exists, or rejects it, and deleting a node sends a drop of each of its remote edges to the
+ * other shard. Messages between two threads are delivered in order, so every shard applies the operations of the
+ * calling thread on its nodes in the order they were called, and both shards of a cross shard edge agree on it once
+ * all messages are delivered. Operations on nodes of different shards are only ordered with respect to each other by
+ * sync: an edge addition may see a node added or deleted by a later call, or miss one by an earlier call, unless a
+ * sync separates them.
+ * <p>
+ * The max neighborhood is read wait-free by merging the max neighborhoods published by the shards, each the top of
+ * the max heap of its Graph. Other queries sync first.
+ * <p>
+ * Mutations and sync must be called by one thread at a time. Node weights are fixed: a node whose weight changes must
+ * be deleted and added again.
+ */
+public class ShardedGraph implements AutoCloseable {
+    private static final byte ADD_NODE = 0;
+    private static final byte DELETE_NODE = 1;
+    private static final byte ADD_EDGE = 2;
+    private static final byte REQUEST_EDGE = 3;
+    private static final byte ACCEPT_EDGE = 4;
+    private static final byte REJECT_EDGE = 5;
+    private static final byte DROP_EDGE = 6;
+
+    private static final int BATCH_SIZE = 1 << 10;
+
+    /**
+     * This class represents a batch of messages to a shard, stored in parallel primitive arrays.
+     */
+    private static final class Batch {
+        private final byte[] types = new byte[BATCH_SIZE];
+        private final int[] ids1 = new int[BATCH_SIZE];
+        private final int[] ids2 = new int[BATCH_SIZE];
+        private final long[] weights = new long[BATCH_SIZE];
+        private final long[] requestIds = new long[BATCH_SIZE];
+        private int size;
+    }
+
+    /**
+     * This class represents a shard: a Graph of the nodes of the shard, their remote edges, and the worker thread that
+     * owns both and applies the messages sent to the shard.
+     */
+    private final class Shard implements Runnable {
+        private final int index;
+        private final Graph graph;
+        private final RemoteEdges remoteEdges;
+        private final ConcurrentLinkedQueue<Batch> inbox;
+        private final Thread thread;
+
+        // fields of the worker only
+        private final Batch[] outbox;
+        private long nextRequestId;
+
+        // runs of edge additions and neighborhood weight changes, applied as batches of Graph
+        private final int[] runIds1;
+        private final int[] runIds2;
+        private int edgeRunLength;
+        private final int[] runNodeIds;
+        private final long[] runDeltas;
+        private int weightRunLength;
+
+        /**
+         * Creates a new shard on given nodes, with a worker thread that is not started. O(n).
+         *
+         * @param index - index of shard.
+         * @param nodes - nodes of shard.
+         */
+        private Shard(int index, Graph.Node[] nodes) {
+            this.index = index;
+            this.graph = new Graph(nodes);
+            this.graph.setPublishing(true);
+            this.remoteEdges = new RemoteEdges();
+            this.inbox = new ConcurrentLinkedQueue<>();
+            this.thread = new Thread(this, "graph-shard-" + index);
+            this.thread.setDaemon(true);
+
+            this.outbox = new Batch[ShardedGraph.this.shards.length];
+
+            this.runIds1 = new int[BATCH_SIZE];
+            this.runIds2 = new int[BATCH_SIZE];
+            this.runNodeIds = new int[BATCH_SIZE];
+            this.runDeltas = new long[BATCH_SIZE];
+        }
+
+        /**
+         * Applies batches from the inbox until the graph is closed, sending its own buffered messages and parking
+         * whenever the inbox is empty.
+         */
+        @Override
+        public void run() {
+            Batch batch;
+
+            while (!ShardedGraph.this.closed) {
+                if ((batch = this.inbox.poll()) == null) {
+                    ShardedGraph.this.sendAll(this.outbox);
+
+                    if ((batch = this.inbox.poll()) == null) {
+                        LockSupport.park(this);
+                        continue;
+                    }
+                }
+
+                try {
+                    this.apply(batch);
+                } catch (Throwable e) {
+                    // the graph is inconsistent from now on, so every later sync throws
+                    ShardedGraph.this.fail(e);
+                    this.edgeRunLength = 0;
+                    this.weightRunLength = 0;
+                } finally {
+                    batch.size = 0;
+                    ShardedGraph.this.freeBatches.add(batch);
+
+                    // messages sent while applying were counted when their batches were started
+                    ShardedGraph.this.pendingBatches.decrementAndGet();
+                }
+            }
+        }
+
+        /**
+         * Applies batch of messages in order. O(batch size) graph operations.
+         *
+         * @param batch - batch.
+         */
+        private void apply(Batch batch) {
+            for (int i = 0; i < batch.size; i++) {
+                switch (batch.types[i]) {
+                    case ADD_NODE:
+                        this.applyRuns();
+                        this.graph.addNode(new Graph.Node(batch.ids1[i], (int) batch.weights[i]));
+                        break;
+                    case DELETE_NODE:
+                        this.applyRuns();
+                        this.deleteNode(batch.ids1[i]);
+                        break;
+                    case ADD_EDGE:
+                        this.addEdge(batch.ids1[i], batch.ids2[i]);
+                        break;
+                    case REQUEST_EDGE:
+                        this.requestEdge(batch.ids1[i], batch.ids2[i], batch.weights[i], batch.requestIds[i]);
+                        break;
+                    case ACCEPT_EDGE:
+                        this.acceptEdge(batch.ids1[i], batch.ids2[i], batch.weights[i], batch.requestIds[i]);
+                        break;
+                    case REJECT_EDGE:
+                        this.rejectEdge(batch.ids1[i], batch.ids2[i], batch.requestIds[i]);
+                        break;
+                    default:
+                        this.dropEdge(batch.ids1[i], batch.ids2[i], batch.weights[i]);
+                        break;
+                }
+            }
+
+            this.applyRuns();
+        }
+
+        /**
+         * Applies buffered runs of edge additions and neighborhood weight changes, each as one batch of Graph.
+         * They commute, and are applied before any node is added or deleted.
+         */
+        private void applyRuns() {
+            if (this.edgeRunLength > 0) {
+                this.graph.addEdges(this.runIds1, this.runIds2, this.edgeRunLength);
+                this.edgeRunLength = 0;
+            }
+
+            if (this.weightRunLength > 0) {
+                this.graph.addNeighborhoodWeights(this.runNodeIds, this.runDeltas, this.weightRunLength);
+                this.weightRunLength = 0;
+            }
+        }
+
+        /**
+         * Buffers change in neighborhood weight of node of shard. O(1).
+         *
+         * @param nodeId - id of node.
+         * @param delta  - change in neighborhood weight.
+         */
+        private void addNeighborhoodWeight(int nodeId, long delta) {
+            if (this.weightRunLength == BATCH_SIZE) {
+                this.applyRuns();
+            }
+
+            this.runNodeIds[this.weightRunLength] = nodeId;
+            this.runDeltas[this.weightRunLength++] = delta;
+        }
+
+        /**
+         * Adds edge from node of shard: buffers it if the other node is of the shard too, otherwise records a pending
+         * remote edge and requests it from the shard of the other node, unless the node does not exist or the edge
+         * is already recorded. O(1) - Amortized expected.
+         *
+         * @param nodeId  - id of node of shard.
+         * @param otherId - id of other node.
+         */
+        private void addEdge(int nodeId, int otherId) {
+            int shard = ShardedGraph.this.getShard(otherId);
+
+            if (shard == this.index) {
+                if (this.edgeRunLength == BATCH_SIZE) {
+                    this.applyRuns();
+                }
+
+                this.runIds1[this.edgeRunLength] = nodeId;
+                this.runIds2[this.edgeRunLength++] = otherId;
+
+                return;
+            }
+
+            Graph.Node node = this.graph.getNode(nodeId);
+
+            if (node == null || this.remoteEdges.find(nodeId, otherId) != RemoteEdges.NIL) {
+                return;
+            }
+
+            long requestId = ++this.nextRequestId;
+
+            this.remoteEdges.add(nodeId, otherId, requestId);
+            ShardedGraph.this.send(this.outbox, shard, REQUEST_EDGE, otherId, nodeId, node.getWeight(), requestId);
+        }
+
+        /**
+         * Accepts requested remote edge if node of shard exists and the edge is not recorded, adding the weight of
+         * the requesting node to its neighborhood, otherwise rejects it. O(1) - Amortized expected.
+         *
+         * @param nodeId    - id of node of shard.
+         * @param remoteId  - id of requesting node.
+         * @param weight    - weight of requesting node.
+         * @param requestId - id of request.
+         */
+        private void requestEdge(int nodeId, int remoteId, long weight, long requestId) {
+            Graph.Node node = this.graph.getNode(nodeId);
+            int shard = ShardedGraph.this.getShard(remoteId);
+
+            if (node == null || this.remoteEdges.find(nodeId, remoteId) != RemoteEdges.NIL) {
+                ShardedGraph.this.send(this.outbox, shard, REJECT_EDGE, remoteId, nodeId, 0, requestId);
+
+                return;
+            }
+
+            this.remoteEdges.add(nodeId, remoteId, RemoteEdges.CONFIRMED);
+            this.addNeighborhoodWeight(nodeId, weight);
+
+            ShardedGraph.this.send(this.outbox, shard, ACCEPT_EDGE, remoteId, nodeId, node.getWeight(), requestId);
+        }
+
+        /**
+         * Confirms pending remote edge of given request, if still pending, adding the weight of the accepting node to
+         * the neighborhood of the node of shard. O(1) - Expected.
+         *
+         * @param nodeId    - id of node of shard.
+         * @param remoteId  - id of accepting node.
+         * @param weight    - weight of accepting node.
+         * @param requestId - id of request.
+         */
+        private void acceptEdge(int nodeId, int remoteId, long weight, long requestId) {
+            int edge = this.remoteEdges.find(nodeId, remoteId);
+
+            // a node deleted since the request dropped its pending edge, and may have requested it again since
+            if (edge != RemoteEdges.NIL && this.remoteEdges.getRequestId(edge) == requestId) {
+                this.remoteEdges.confirm(edge);
+                this.addNeighborhoodWeight(nodeId, weight);
+            }
+        }
+
+        /**
+         * Removes pending remote edge of given request, if still pending. O(1) - Expected.
+         *
+         * @param nodeId    - id of node of shard.
+         * @param remoteId  - id of rejecting node.
+         * @param requestId - id of request.
+         */
+        private void rejectEdge(int nodeId, int remoteId, long requestId) {
+            int edge = this.remoteEdges.find(nodeId, remoteId);
+
+            if (edge != RemoteEdges.NIL && this.remoteEdges.getRequestId(edge) == requestId) {
+                this.remoteEdges.remove(edge);
+            }
+        }
+
+        /**
+         * Removes confirmed remote edge to deleted node, if any, subtracting the weight of that node from the
+         * neighborhood of the node of shard. A pending edge is of a later request, which the shard of the deleted
+         * node will answer after the drop. O(1) - Expected.
+         *
+         * @param nodeId   - id of node of shard.
+         * @param remoteId - id of deleted node.
+         * @param weight   - weight of deleted node.
+         */
+        private void dropEdge(int nodeId, int remoteId, long weight) {
+            int edge = this.remoteEdges.find(nodeId, remoteId);
+
+            if (edge != RemoteEdges.NIL && this.remoteEdges.getRequestId(edge) == RemoteEdges.CONFIRMED) {
+                this.remoteEdges.remove(edge);
+                this.addNeighborhoodWeight(nodeId, -weight);
+            }
+        }
+
+        /**
+         * Deletes node of shard, dropping its remote edges, confirmed or pending, at the shards of their other nodes.
+         * O((d+1) log n) for d edges.
+         *
+         * @param nodeId - id of node of shard.
+         */
+        private void deleteNode(int nodeId) {
+            Graph.Node node = this.graph.getNode(nodeId);
+            int remoteId;
+
+            if (node == null) {
+                return;
+            }
+
+            for (int edge; (edge = this.remoteEdges.first(nodeId)) != RemoteEdges.NIL; ) {
+                remoteId = this.remoteEdges.getRemoteId(edge);
+
+                ShardedGraph.this.send(this.outbox, ShardedGraph.this.getShard(remoteId), DROP_EDGE, remoteId, nodeId,
+                        node.getWeight(), 0);
+                this.remoteEdges.remove(edge);
+            }
+
+            this.graph.deleteNode(nodeId);
+        }
+    }
+
+    private final Shard[] shards;
+    private final AtomicLong pendingBatches;
+    private final ConcurrentLinkedQueue<Batch> freeBatches;
+    private volatile Throwable failure;
+    private volatile boolean closed;
+
+    // fields of the calling thread only
+    private final Batch[] outbox;
+
+    /**
+     * Initializes the sharded graph on a given set of nodes, partitioned across given number of shards, and starts a
+     * worker thread for every shard. The created graph is empty, i.e. it has no edges. O(n).
+     *
+     * @param nodes     - an array of node objects
+     * @param numShards - number of shards, usually the number of cores.
+     * @throws IllegalArgumentException if numShards is less than 1.
+     */
+    public ShardedGraph(Graph.Node[] nodes, int numShards) {
+        if (numShards < 1) {
+            throw new IllegalArgumentException("a sharded graph needs at least 1 shard");
+        }
+
+        int[] counts = new int[numShards];
+        Graph.Node[][] shardNodes = new Graph.Node[numShards][];
+
+        this.shards = new Shard[numShards];
+        this.pendingBatches = new AtomicLong();
+        this.freeBatches = new ConcurrentLinkedQueue<>();
+        this.outbox = new Batch[numShards];
+
+        for (Graph.Node node : nodes) {
+            counts[this.getShard(node.getId())]++;
+        }
+
+        for (int i = 0; i < numShards; i++) {
+            shardNodes[i] = new Graph.Node[counts[i]];
+            counts[i] = 0;
+        }
+
+        for (Graph.Node node : nodes) {
+            int shard = this.getShard(node.getId());
+
+            shardNodes[shard][counts[shard]++] = node;
+        }
+
+        for (int i = 0; i < numShards; i++) {
+            this.shards[i] = new Shard(i, shardNodes[i]);
+        }
+
+        for (Shard shard : this.shards) {
+            shard.thread.start();
+        }
+    }
+
+    /**
+     * Initializes an empty sharded graph, with no nodes and no edges, across given number of shards. O(1).
+     *
+     * @param numShards - number of shards, usually the number of cores.
+     * @throws IllegalArgumentException if numShards is less than 1.
+     */
+    public ShardedGraph(int numShards) {
+        this(new Graph.Node[0], numShards);
+    }
+
+    /**
+     * Returns shard of node id, by the high bits of a multiplicative hash scaled to the number of shards. O(1).
+     *
+     * @param nodeId - id of node.
+     * @return index of shard.
+     */
+    private int getShard(int nodeId) {
+        return (int) ((((nodeId * 0x9E3779B97F4A7C15L) >>> 32) * this.shards.length) >>> 32);
+    }
+
+    /**
+     * Records the first failure of a worker. O(1).
+     *
+     * @param failure - failure.
+     */
+    private synchronized void fail(Throwable failure) {
+        if (this.failure == null) {
+            this.failure = failure;
+        }
+    }
+
+    /**
+     * Buffers message to shard in outbox of sender, starting a new batch if there is none and handing the batch over
+     * once full. Batches are taken from the batches freed by the workers, and allocated only if there is none. O(1).
+     *
+     * @param outbox    - outbox of sender, by shard.
+     * @param shard     - index of shard.
+     * @param type      - type of message.
+     * @param id1       - id of node of shard.
+     * @param id2       - id of other node, if any.
+     * @param weight    - weight, if any.
+     * @param requestId - id of request, if any.
+     */
+    private void send(Batch[] outbox, int shard, byte type, int id1, int id2, long weight, long requestId) {
+        Batch batch = outbox[shard];
+
+        if (batch == null) {
+            // counted from its first message, so no message is in flight while the count is 0
+            if ((batch = this.freeBatches.poll()) == null) {
+                batch = new Batch();
+            }
+
+            outbox[shard] = batch;
+            this.pendingBatches.incrementAndGet();
+        }
+
+        int i = batch.size++;
+
+        batch.types[i] = type;
+        batch.ids1[i] = id1;
+        batch.ids2[i] = id2;
+        batch.weights[i] = weight;
+        batch.requestIds[i] = requestId;
+
+        if (batch.size == BATCH_SIZE) {
+            outbox[shard] = null;
+            this.handOver(shard, batch);
+        }
+    }
+
+    /**
+     * Hands over all started batches of outbox of sender. O(shards).
+     *
+     * @param outbox - outbox of sender, by shard.
+     */
+    private void sendAll(Batch[] outbox) {
+        for (int shard = 0; shard < outbox.length; shard++) {
+            if (outbox[shard] != null) {
+                this.handOver(shard, outbox[shard]);
+                outbox[shard] = null;
+            }
+        }
+    }
+
+    /**
+     * Adds batch to inbox of shard and wakes its worker. O(1).
+     *
+     * @param shard - index of shard.
+     * @param batch - batch.
+     */
+    private void handOver(int shard, Batch batch) {
+        this.shards[shard].inbox.add(batch);
+        LockSupport.unpark(this.shards[shard].thread);
+    }
+
+    //MUTATIONS---------------------------------------------------------------------------------------------------------
+
+    /**
+     * Adds an edge between the two nodes whose ids are specified, once both exist at their shards, see Graph.addEdge.
+     * Returns without waiting for the edge to be added. O(1) - Amortized.
+     *
+     * @param node1_id - the id of the first node.
+     * @param node2_id - the id of the second node.
+     */
+    public void addEdge(int node1_id, int node2_id) {
+        if (node1_id == node2_id) {
+            return;
+        }
+
+        // a cross shard edge is always requested by the shard of its lower id node, which so sees any duplicate
+        int low = Math.min(node1_id, node2_id), high = Math.max(node1_id, node2_id);
+
+        this.send(this.outbox, this.getShard(low), ADD_EDGE, low, high, 0, 0);
+    }
+
+    /**
+     * Adds a node with no edges to its shard, if no node of the same id is there, see Graph.addNode. Returns without
+     * waiting for the node to be added. O(1) - Amortized.
+     *
+     * @param node - the node to add.
+     */
+    public void addNode(Graph.Node node) {
+        this.send(this.outbox, this.getShard(node.getId()), ADD_NODE, node.getId(), 0, node.getWeight(), 0);
+    }
+
+    /**
+     * Deletes the node of the given id from its shard, if it exists, see Graph.deleteNode. Returns without waiting
+     * for the node to be deleted. O(1) - Amortized.
+     *
+     * @param node_id - the id of the node to delete.
+     */
+    public void deleteNode(int node_id) {
+        this.send(this.outbox, this.getShard(node_id), DELETE_NODE, node_id, 0, 0, 0);
+    }
+
+    /**
+     * Hands over all buffered operations and waits until they and all messages they caused are applied by all shards,
+     * so that every shard has applied every operation called before and both shards of every cross shard edge agree
+     * on it.
+     * <p>
+     * A worker that fails to apply a message records the failure and goes on with the next batch, so sync still
+     * returns, but the graph is then inconsistent and every sync throws, and so do close and the queries that sync.
+     *
+     * @throws IllegalStateException if a worker has failed, with its failure as cause.
+     */
+    public void sync() {
+        this.sendAll(this.outbox);
+
+        while (this.pendingBatches.get() != 0) {
+            Thread.yield();
+        }
+
+        if (this.failure != null) {
+            throw new IllegalStateException("a shard failed to apply an operation", this.failure);
+        }
+    }
+
+    /**
+     * Applies all buffered operations, see sync, and stops the worker threads. The graph must not be used after.
+     *
+     * @throws IllegalStateException if a worker has failed, see sync, once the worker threads are stopped.
+     */
+    @Override
+    public void close() {
+        try {
+            this.sync();
+        } finally {
+            this.closed = true;
+
+            for (Shard shard : this.shards) {
+                LockSupport.unpark(shard.thread);
+            }
+
+            for (Shard shard : this.shards) {
+                try {
+                    shard.thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+
+                    break;
+                }
+            }
+        }
+    }
+
+    //QUERIES-----------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the node with the maximum neighborhood weight together with that weight, merged from the max
+     * neighborhoods last published by the shards, or null if all shards were empty. Reflects every operation called
+     * before the last sync, and possibly some called since. May be called by any thread. Wait-free, O(shards).
+     *
+     * @return the max neighborhood, or null.
+     */
+    public Graph.MaxNeighborhood getMaxNeighborhood() {
+        Graph.MaxNeighborhood max = null, top;
+
+        for (Shard shard : this.shards) {
+            top = shard.graph.getPublishedMaxNeighborhood();
+
+            if (top != null && (max == null || top.getWeight() > max.getWeight())) {
+                max = top;
+            }
+        }
+
+        return max;
+    }
+
+    /**
+     * Returns the node with the maximum neighborhood weight, or null if graph is empty, see getMaxNeighborhood.
+     * Wait-free, O(shards).
+     *
+     * @return the node with the maximum neighborhood weight, or null.
+     */
+    public Graph.Node maxNeighborhoodWeight() {
+        Graph.MaxNeighborhood max = this.getMaxNeighborhood();
+
+        return max == null ? null : max.getNode();
+    }
+
+    /**
+     * Syncs, then returns the neighborhood weight of the node of the given id, or -1 if no such node exists,
+     * see Graph.getNeighborhoodWeightLong.
+     *
+     * @param node_id - an id of a node.
+     * @return the neighborhood weight of the node, or -1.
+     */
+    public long getNeighborhoodWeightLong(int node_id) {
+        this.sync();
+
+        return this.shards[this.getShard(node_id)].graph.getNeighborhoodWeightLong(node_id);
+    }
+
+    /**
+     * Syncs, then returns whether a node of the given id exists, see Graph.containsNode.
+     *
+     * @param node_id - an id of a node.
+     * @return 'true' if a node of id 'node_id' exists in the graph, otherwise 'false'.
+     */
+    public boolean containsNode(int node_id) {
+        this.sync();
+
+        return this.shards[this.getShard(node_id)].graph.containsNode(node_id);
+    }
+
+    /**
+     * Syncs, then returns number of nodes in graph. O(shards).
+     *
+     * @return number of nodes in graph
+     */
+    public int getNumNodes() {
+        int numNodes = 0;
+
+        this.sync();
+
+        for (Shard shard : this.shards) {
+            numNodes += shard.graph.getNumNodes();
+        }
+
+        return numNodes;
+    }
+
+    /**
+     * Syncs, then returns number of edges in graph, each cross shard edge being recorded by both its shards.
+     * O(shards).
+     *
+     * @return number of edges in graph
+     */
+    public int getNumEdges() {
+        long numEdges = 0, numRemoteEdges = 0;
+
+        this.sync();
+
+        for (Shard shard : this.shards) {
+            numEdges += shard.graph.getNumEdges();
+            numRemoteEdges += shard.remoteEdges.getNumConfirmed();
+        }
+
+        return (int) (numEdges + numRemoteEdges / 2);
+    }
+
+    /**
+     * Returns number of shards. O(1).
+     *
+     * @return number of shards.
+     */
+    public int getNumShards() {
+        return this.shards.length;
+    }
+}
@@ -176,7 +176,7 @@ public class Tester {
     {
         for(int v : this.nodesIds)
         {
-            if(G.getNeighborhoodWeight(v) != this.neighborhoodWeights.get(v))
+            if(G.getNeighborhoodWeightLong(v) != this.neighborhoodWeights.get(v))
             {
                 System.out.println("ERR - neighborhood weights");
                 int a = 1/0;
@@ -197,11 +197,11 @@ public class Tester {
             }
         }
         if((maxNeighborhoodWeightNode == null && G.maxNeighborhoodWeight() != null) ||
-                (maxNeighborhoodWeightNode != null && this.neighborhoodWeights.get(maxNeighborhoodWeightNode) != G.getNeighborhoodWeight(G.maxNeighborhoodWeight().getId())))
+                (maxNeighborhoodWeightNode != null && this.neighborhoodWeights.get(maxNeighborhoodWeightNode) != G.getNeighborhoodWeightLong(G.maxNeighborhoodWeight().getId())))
         {
             System.out.println("ERR - Maximum");
             System.out.println("Should be: " + maxNeighborhoodWeightNode + ": " + this.neighborhoodWeights.get(maxNeighborhoodWeightNode));
-            System.out.println("But is:    " + G.maxNeighborhoodWeight().getId() + ": " + G.getNeighborhoodWeight(G.maxNeighborhoodWeight().getId()));
+            System.out.println("But is:    " + G.maxNeighborhoodWeight().getId() + ": " + G.getNeighborhoodWeightLong(G.maxNeighborhoodWeight().getId()));
             int a = 1/0;
             return false;
         }
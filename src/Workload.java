@@ -0,0 +1,362 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This class represents a seeded, reproducible workload of graph operations over a fixed universe of nodes.
+ * <p>
+ * Nodes are referred to by index 0..n-1, and the id of the node of index i is ids[i], so a model of the graph can
+ * keep its state in arrays indexed by node. Every node starts in the graph with no edges. Operations are stored in
+ * parallel primitive arrays: the type of the k-th operation is types[k], its node index is args1[k], and args2[k] is
+ * the second node of edge operations or the new weight of a weight update. A batch operation stores its elements in
+ * the parallel arrays batchArgs1 and batchArgs2, from offset args1[k] and of length args2[k], as node and second node
+ * or new weight. Edge deletions mostly delete edges added by earlier operations. A node added back is added with its
+ * weight at the start of the workload. The same distribution, size and seed always give the same workload.
+ * <p>
+ * Distributions pick the nodes of operations and the ids of nodes:
+ * UNIFORM   - nodes are picked uniformly, ids are 1..n.
+ * POWER_LAW - nodes are picked with density proportional to 1/sqrt(index), as in Benchmarks, so low indices become
+ * hubs, ids are 1..n.
+ * COLLIDING - nodes are picked uniformly, and ids are adversarial to hash tables: they come in groups of four ids
+ * that are congruent modulo the prime P = 10^9+9, so every group collides under any (a*i+b mod P) hash,
+ * and the ids of the same multiple of P differ only in high bits, so they collide under any hash that
+ * keeps low bits.
+ */
+public class Workload {
+    public enum Distribution {
+        UNIFORM, POWER_LAW, COLLIDING
+    }
+
+    public static final byte ADD_EDGE = 1;
+    public static final byte DELETE_NODE = 2;
+    public static final byte ADD_NODE = 3;
+    public static final byte DELETE_EDGE = 4;
+    public static final byte UPDATE_NODE_WEIGHT = 5;
+    public static final byte ADD_EDGES = 6;
+    public static final byte DELETE_NODES = 7;
+    public static final byte UPDATE_NODE_WEIGHTS = 8;
+    public static final byte NUM_TYPES = 9;
+    public static final int MAX_BATCH_LENGTH = 16;
+
+    // operations per mille of every type by type, the rest add edges
+    private static final int[] PER_MILLE = {0, 0, 50, 50, 30, 30, 10, 2, 10};
+
+    private static final long P = (long) Math.pow(10, 9) + 9;
+    private static final int MAX_WEIGHT = 100;
+
+    private final Distribution distribution;
+    private final long seed;
+
+    private final int[] ids;
+    private final int[] weights;
+
+    private final byte[] types;
+    private final int[] args1;
+    private final int[] args2;
+
+    private int[] batchArgs1;
+    private int[] batchArgs2;
+    private int batchArgsLength;
+
+    /**
+     * Generates a workload of given number of operations over given number of nodes. O(n + k) for k operations.
+     *
+     * @param distribution - distribution of nodes of operations and ids of nodes.
+     * @param n            - number of nodes, at least 2.
+     * @param numOps       - number of operations.
+     * @param seed         - seed.
+     * @throws IllegalArgumentException if n is less than 2, or too large for distinct colliding ids.
+     */
+    public Workload(Distribution distribution, int n, int numOps, long seed) {
+        if (n < 2) {
+            throw new IllegalArgumentException("a workload needs at least 2 nodes");
+        }
+
+        Random random = new Random(seed);
+        int draw, earlier;
+        byte type;
+
+        this.distribution = distribution;
+        this.seed = seed;
+
+        this.ids = Workload.generateIds(distribution, n);
+        this.weights = new int[n];
+
+        for (int i = 0; i < n; i++) {
+            this.weights[i] = random.nextInt(MAX_WEIGHT);
+        }
+
+        this.types = new byte[numOps];
+        this.args1 = new int[numOps];
+        this.args2 = new int[numOps];
+
+        this.batchArgs1 = new int[MAX_BATCH_LENGTH];
+        this.batchArgs2 = new int[MAX_BATCH_LENGTH];
+
+        for (int k = 0; k < numOps; k++) {
+            draw = random.nextInt(1000);
+            type = ADD_EDGE;
+
+            for (byte t = 0; t < NUM_TYPES; t++) {
+                if ((draw -= PER_MILLE[t]) < 0) {
+                    type = t;
+                    break;
+                }
+            }
+
+            this.types[k] = type;
+
+            switch (type) {
+                case DELETE_NODE:
+                case ADD_NODE:
+                    this.args1[k] = random.nextInt(n);
+                    break;
+                case DELETE_EDGE:
+                    // delete the edge of an earlier edge addition, if any
+                    earlier = k == 0 ? 0 : random.nextInt(k);
+
+                    if (k > 0 && this.types[earlier] == ADD_EDGE) {
+                        this.args1[k] = this.args1[earlier];
+                        this.args2[k] = this.args2[earlier];
+                    } else {
+                        this.setEdge(this.args1, this.args2, k, n, random);
+                    }
+                    break;
+                case UPDATE_NODE_WEIGHT:
+                    this.args1[k] = this.randomNode(n, random);
+                    this.args2[k] = random.nextInt(MAX_WEIGHT);
+                    break;
+                case ADD_EDGES:
+                case DELETE_NODES:
+                case UPDATE_NODE_WEIGHTS:
+                    this.args1[k] = this.batchArgsLength;
+                    this.args2[k] = 1 + random.nextInt(MAX_BATCH_LENGTH);
+
+                    if (this.batchArgsLength + this.args2[k] > this.batchArgs1.length) {
+                        this.batchArgs1 = Arrays.copyOf(this.batchArgs1, 2 * this.batchArgs1.length);
+                        this.batchArgs2 = Arrays.copyOf(this.batchArgs2, this.batchArgs1.length);
+                    }
+
+                    for (int i = this.batchArgsLength; i < this.batchArgsLength + this.args2[k]; i++) {
+                        if (type == ADD_EDGES) {
+                            this.setEdge(this.batchArgs1, this.batchArgs2, i, n, random);
+                        } else if (type == DELETE_NODES) {
+                            this.batchArgs1[i] = random.nextInt(n);
+                        } else {
+                            this.batchArgs1[i] = this.randomNode(n, random);
+                            this.batchArgs2[i] = random.nextInt(MAX_WEIGHT);
+                        }
+                    }
+
+                    this.batchArgsLength += this.args2[k];
+                    break;
+                default:
+                    this.setEdge(this.args1, this.args2, k, n, random);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Sets two distinct random nodes by distribution at given index of two arrays. O(1) - Expected.
+     *
+     * @param nodes1 - array of first nodes.
+     * @param nodes2 - array of second nodes.
+     * @param i      - index.
+     * @param n      - number of nodes.
+     * @param random - random.
+     */
+    private void setEdge(int[] nodes1, int[] nodes2, int i, int n, Random random) {
+        do {
+            nodes1[i] = this.randomNode(n, random);
+            nodes2[i] = this.randomNode(n, random);
+        } while (nodes1[i] == nodes2[i]);
+    }
+
+    /**
+     * Returns ids of nodes 0..n-1 for given distribution. O(n).
+     *
+     * @param distribution - distribution.
+     * @param n            - number of nodes.
+     * @return ids of nodes.
+     * @throws IllegalArgumentException if n is too large for distinct colliding ids.
+     */
+    private static int[] generateIds(Distribution distribution, int n) {
+        int[] ids = new int[n];
+
+        if (distribution != Distribution.COLLIDING) {
+            for (int i = 0; i < n; i++) {
+                ids[i] = i + 1;
+            }
+
+            return ids;
+        }
+
+        // residues below P with equal low bits, each taken with 4 multiples of P in the int range
+        int groups = (n + 3) / 4, shift = 0;
+
+        while (shift < 30 && ((long) groups << (shift + 1)) <= P) {
+            shift++;
+        }
+
+        if ((long) groups << shift > P) {
+            throw new IllegalArgumentException("too many nodes for distinct colliding ids");
+        }
+
+        for (int i = 0; i < n; i++) {
+            ids[i] = (int) (((long) (i / 4) << shift) + (i % 4 - 2) * P);
+        }
+
+        return ids;
+    }
+
+    /**
+     * Returns random node index by distribution. O(1).
+     *
+     * @param n      - number of nodes.
+     * @param random - random.
+     * @return node index.
+     */
+    private int randomNode(int n, Random random) {
+        if (this.distribution != Distribution.POWER_LAW) {
+            return random.nextInt(n);
+        }
+
+        double u = random.nextDouble();
+
+        return (int) (n * u * u);
+    }
+
+    /**
+     * Returns new node objects of all nodes, as in the graph at the start of the workload. O(n).
+     *
+     * @return node objects.
+     */
+    public Graph.Node[] createNodes() {
+        Graph.Node[] nodes = new Graph.Node[this.ids.length];
+
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new Graph.Node(this.ids[i], this.weights[i]);
+        }
+
+        return nodes;
+    }
+
+    /**
+     * Returns the distribution of the workload. O(1).
+     *
+     * @return distribution of workload.
+     */
+    public Distribution getDistribution() {
+        return this.distribution;
+    }
+
+    /**
+     * Returns the seed of the workload. O(1).
+     *
+     * @return seed of workload.
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Returns the number of nodes of the workload. O(1).
+     *
+     * @return number of nodes.
+     */
+    public int getNumNodes() {
+        return this.ids.length;
+    }
+
+    /**
+     * Returns the number of operations of the workload. O(1).
+     *
+     * @return number of operations.
+     */
+    public int getNumOps() {
+        return this.types.length;
+    }
+
+    /**
+     * Returns the id of node. O(1).
+     *
+     * @param node - node index.
+     * @return id of node.
+     */
+    public int getId(int node) {
+        return this.ids[node];
+    }
+
+    /**
+     * Returns the weight of node. O(1).
+     *
+     * @param node - node index.
+     * @return weight of node.
+     */
+    public int getWeight(int node) {
+        return this.weights[node];
+    }
+
+    /**
+     * Returns the type of operation, one of the type constants. O(1).
+     *
+     * @param op - operation index.
+     * @return type of operation.
+     */
+    public byte getType(int op) {
+        return this.types[op];
+    }
+
+    /**
+     * Returns the node of operation, or the first node of an edge operation. O(1).
+     *
+     * @param op - operation index, not of a batch operation.
+     * @return node index.
+     */
+    public int getArg1(int op) {
+        return this.args1[op];
+    }
+
+    /**
+     * Returns the second node of an edge operation, or the new weight of a weight update. O(1).
+     *
+     * @param op - operation index, not of a batch operation.
+     * @return node index, or weight.
+     */
+    public int getArg2(int op) {
+        return this.args2[op];
+    }
+
+    /**
+     * Returns the number of elements of a batch operation. O(1).
+     *
+     * @param op - operation index, of a batch operation.
+     * @return number of elements.
+     */
+    public int getBatchLength(int op) {
+        return this.args2[op];
+    }
+
+    /**
+     * Returns the node of an element of a batch operation, or its first node for edge additions. O(1).
+     *
+     * @param op - operation index, of a batch operation.
+     * @param i  - element index, less than the batch length.
+     * @return node index.
+     */
+    public int getBatchArg1(int op, int i) {
+        return this.batchArgs1[this.args1[op] + i];
+    }
+
+    /**
+     * Returns the second node of an element of a batch of edge additions, or the new weight of an element of a batch
+     * of weight updates. O(1).
+     *
+     * @param op - operation index, of a batch operation.
+     * @param i  - element index, less than the batch length.
+     * @return node index, or weight.
+     */
+    public int getBatchArg2(int op, int i) {
+        return this.batchArgs2[this.args1[op] + i];
+    }
+}
@@ -0,0 +1,1318 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs seeded workloads against Graph and its variants, either checking every operation against a reference model or
+ * measuring throughput.
+ * <p>
+ * check - applies every operation of the workload to a graph and to ReferenceGraph, a model of the graph over
+ * primitive arrays indexed by node, and compares the results of every operation, batch operations to the
+ * model applying their elements one by one, the number of nodes and edges, the neighborhood weights of the
+ * nodes of the operation and the weight of maxNeighborhoodWeight after every operation. Every n operations
+ * it compares all neighborhood weights and the max of the graph, of the operation log replayed onto the
+ * graph read from the last snapshot, of the graph read from a new snapshot, and of a graph built from the
+ * nodes and edges of the model by the bulk constructor. Every workload is checked on a Graph with eager and
+ * with lazy repair of the heap, and on an OffHeapGraph, which has no snapshots or log. Then it is applied to a
+ * ShardedGraph of 4 shards with a sync before and after every node addition and deletion, which is what
+ * orders them with the edge additions around them, skipping edge deletions and weight updates, and every n
+ * operations the synced graph is compared to the model. The model costs O(1) per edge and O(log n) per
+ * neighborhood weight change, so millions of nodes are checked in seconds.
+ * bench - applies the workload to a graph and prints the throughput of every type of operation, then applies it
+ * again with GraphMetrics attached and prints latency percentiles, probe lengths and sift distances, then
+ * applies it to a ShardedGraph of one shard per core and prints its throughput of all operations, then applies it to
+ * a ConcurrentGraph from 1, 2, 4... threads and prints the throughput and speedup over one thread of each.
+ * stress - applies the workload to a ConcurrentGraph from one thread per core, at least 4, while another thread
+ * reads the max neighborhood, batch operations element by element and without weight updates, whose
+ * final weights would depend on the interleaving, then checks that the number of nodes matches the node additions and
+ * deletions that succeeded, and that the number of edges, every neighborhood weight and the max
+ * neighborhood weight match the adjacency left in the graph.
+ * <p>
+ * Usage: java WorkloadRunner check|bench|stress [distribution|all] [exponent] [opsPerNode] [seed], workloads of
+ * 2^exponent nodes (default 2^20) and opsPerNode * 2^exponent operations (default 8). Run with a heap large enough
+ * for the graph, e.g. -Xmx4g. Exits with status 1 on the first mismatch, printing the seed and operation.
+ */
+public class WorkloadRunner {
+    private static final String[] TYPE_NAMES = {null, "addEdge", "deleteNode", "addNode", "deleteEdge",
+            "updateNodeWeight", "addEdges", "deleteNodes", "updateNodeWeights"};
+
+    private static volatile long blackhole;
+
+    /**
+     * This class represents a model of a graph over the nodes of a workload, kept in primitive arrays indexed by node.
+     * The edges of every node are kept in an array, and an edge map keeps the position of every edge in the arrays
+     * of both its nodes, so an edge is removed in O(1) by moving the last edge of each array into its place.
+     * The maximum neighborhood weight is kept in a tournament tree over the nodes.
+     */
+    static class ReferenceGraph {
+        private final int[] weights;
+        private final boolean[] alive;
+        private final long[] neighborhoodWeights;
+
+        private final int[][] neighbors;
+        private final int[] degrees;
+
+        // edge map, from (smaller node << 32 | larger node) + 1 to (position in array of smaller << 32 | position
+        // in array of larger), 0 is an empty key
+        private long[] keys;
+        private long[] positions;
+        private int mapSize;
+
+        // tournament tree, leaves at leaves + node, Long.MIN_VALUE for nodes not in the graph
+        private final long[] tree;
+        private final int leaves;
+
+        private int numNodes;
+        private int numEdges;
+
+        /**
+         * Creates a model of the graph at the start of workload, with every node and no edges. O(n).
+         *
+         * @param workload - workload.
+         */
+        ReferenceGraph(Workload workload) {
+            int n = workload.getNumNodes(), leaves = 1;
+
+            while (leaves < n) {
+                leaves <<= 1;
+            }
+
+            this.weights = new int[n];
+            this.alive = new boolean[n];
+            this.neighborhoodWeights = new long[n];
+            this.neighbors = new int[n][];
+            this.degrees = new int[n];
+
+            this.keys = new long[16];
+            this.positions = new long[16];
+
+            this.leaves = leaves;
+            this.tree = new long[2 * leaves];
+            Arrays.fill(this.tree, Long.MIN_VALUE);
+
+            for (int i = 0; i < n; i++) {
+                this.weights[i] = workload.getWeight(i);
+                this.alive[i] = true;
+                this.neighborhoodWeights[i] = this.weights[i];
+                this.neighbors[i] = new int[2];
+                this.tree[leaves + i] = this.weights[i];
+            }
+
+            for (int i = leaves - 1; i > 0; i--) {
+                this.tree[i] = Math.max(this.tree[2 * i], this.tree[2 * i + 1]);
+            }
+
+            this.numNodes = n;
+        }
+
+        //EDGE MAP------------------------------------------------------------------------------------------------------
+
+        /**
+         * Returns key of the edge between two nodes, never 0. O(1).
+         *
+         * @param node1 - first node.
+         * @param node2 - second node.
+         * @return key of edge.
+         */
+        private static long getKey(int node1, int node2) {
+            return (Math.min(node1, node2) * (1L << 32) | Math.max(node1, node2)) + 1;
+        }
+
+        /**
+         * Returns slot of key in edge map, or the empty slot ending its probe sequence. O(1) - Expected.
+         *
+         * @param keys - keys of map.
+         * @param key  - key.
+         * @return slot of key, or empty slot.
+         */
+        private static int getSlot(long[] keys, long key) {
+            int mask = keys.length - 1, slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+
+            return slot;
+        }
+
+        /**
+         * Returns position of node in the array of the other node of an edge, given the positions of the edge. O(1).
+         *
+         * @param positions - positions of edge.
+         * @param node      - node.
+         * @param other     - other node.
+         * @return position of node in the array of other.
+         */
+        private static int getPosition(long positions, int node, int other) {
+            return other < node ? (int) (positions >>> 32) : (int) positions;
+        }
+
+        /**
+         * Returns positions of an edge with the position of node in the array of the other node replaced. O(1).
+         *
+         * @param positions - positions of edge.
+         * @param node      - node.
+         * @param other     - other node.
+         * @param position  - position of node in the array of other.
+         * @return positions of edge.
+         */
+        private static long setPosition(long positions, int node, int other, int position) {
+            return other < node ?
+                    ((long) position << 32) | (positions & 0xFFFFFFFFL) :
+                    (positions & ~0xFFFFFFFFL) | position;
+        }
+
+        /**
+         * Inserts edge map entry, which must not be in the map. O(1) - Expected amortized.
+         *
+         * @param key       - key.
+         * @param positions - positions of edge.
+         */
+        private void put(long key, long positions) {
+            if (2 * (this.mapSize + 1) > this.keys.length) {
+                long[] oldKeys = this.keys, oldPositions = this.positions;
+
+                this.keys = new long[2 * oldKeys.length];
+                this.positions = new long[this.keys.length];
+
+                for (int i = 0, slot; i < oldKeys.length; i++) {
+                    if (oldKeys[i] != 0) {
+                        slot = ReferenceGraph.getSlot(this.keys, oldKeys[i]);
+                        this.keys[slot] = oldKeys[i];
+                        this.positions[slot] = oldPositions[i];
+                    }
+                }
+            }
+
+            int slot = ReferenceGraph.getSlot(this.keys, key);
+
+            this.keys[slot] = key;
+            this.positions[slot] = positions;
+            this.mapSize++;
+        }
+
+        /**
+         * Deletes edge map entry, returning its positions. O(1) - Expected.
+         *
+         * @param key - key, in map.
+         * @return positions of edge.
+         */
+        private long remove(long key) {
+            int mask = this.keys.length - 1, hole = ReferenceGraph.getSlot(this.keys, key), slot = hole, home;
+            long removed = this.positions[hole];
+
+            // shift back every following entry of the probe run whose home slot is not between the hole and itself
+            while (this.keys[slot = (slot + 1) & mask] != 0) {
+                home = (int) ((this.keys[slot] * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+
+                if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                    this.keys[hole] = this.keys[slot];
+                    this.positions[hole] = this.positions[slot];
+                    hole = slot;
+                }
+            }
+
+            this.keys[hole] = 0;
+            this.mapSize--;
+
+            return removed;
+        }
+
+        //OPERATIONS----------------------------------------------------------------------------------------------------
+
+        /**
+         * Sets neighborhood weight of node in tournament tree, or removes it if not in the graph. O(log n).
+         *
+         * @param node - node.
+         */
+        private void update(int node) {
+            int i = this.leaves + node;
+
+            this.tree[i] = this.alive[node] ? this.neighborhoodWeights[node] : Long.MIN_VALUE;
+
+            for (i >>= 1; i > 0; i >>= 1) {
+                this.tree[i] = Math.max(this.tree[2 * i], this.tree[2 * i + 1]);
+            }
+        }
+
+        /**
+         * Appends neighbor to the array of node, returning its position. O(1) - Amortized.
+         *
+         * @param node     - node.
+         * @param neighbor - neighbor.
+         * @return position of neighbor in array of node.
+         */
+        private int append(int node, int neighbor) {
+            if (this.degrees[node] == this.neighbors[node].length) {
+                this.neighbors[node] = Arrays.copyOf(this.neighbors[node], 2 * this.degrees[node]);
+            }
+
+            this.neighbors[node][this.degrees[node]] = neighbor;
+
+            return this.degrees[node]++;
+        }
+
+        /**
+         * Adds an edge between two nodes, as Graph.addEdge. O(log n) - Expected amortized.
+         *
+         * @param node1 - first node.
+         * @param node2 - second node.
+         * @return 'true' if an edge was added, otherwise 'false'.
+         */
+        boolean addEdge(int node1, int node2) {
+            long key = ReferenceGraph.getKey(node1, node2);
+
+            if (node1 == node2 || !this.alive[node1] || !this.alive[node2] ||
+                    this.keys[ReferenceGraph.getSlot(this.keys, key)] == key) {
+                return false;
+            }
+
+            int position2 = this.append(node1, node2), position1 = this.append(node2, node1);
+
+            this.put(key, node1 < node2 ?
+                    ((long) position2 << 32) | position1 :
+                    ((long) position1 << 32) | position2);
+
+            this.neighborhoodWeights[node1] += this.weights[node2];
+            this.neighborhoodWeights[node2] += this.weights[node1];
+            this.update(node1);
+            this.update(node2);
+
+            this.numEdges++;
+
+            return true;
+        }
+
+        /**
+         * Removes the neighbor at given position of the array of node, moving the last neighbor into its place. O(1) -
+         * Expected.
+         *
+         * @param node     - node.
+         * @param position - position in array of node.
+         */
+        private void unlink(int node, int position) {
+            int last = --this.degrees[node], moved = this.neighbors[node][last];
+
+            if (position != last) {
+                int slot = ReferenceGraph.getSlot(this.keys, ReferenceGraph.getKey(node, moved));
+
+                this.neighbors[node][position] = moved;
+                this.positions[slot] = ReferenceGraph.setPosition(this.positions[slot], moved, node, position);
+            }
+        }
+
+        /**
+         * Deletes the edge between two nodes, as Graph.deleteEdge. O(log n) - Expected.
+         *
+         * @param node1 - first node.
+         * @param node2 - second node.
+         * @return 'true' if an edge was deleted, otherwise 'false'.
+         */
+        boolean deleteEdge(int node1, int node2) {
+            long key = ReferenceGraph.getKey(node1, node2);
+
+            if (this.keys[ReferenceGraph.getSlot(this.keys, key)] != key) {
+                return false;
+            }
+
+            long positions = this.remove(key);
+
+            this.unlink(node1, ReferenceGraph.getPosition(positions, node2, node1));
+            this.unlink(node2, ReferenceGraph.getPosition(positions, node1, node2));
+
+            this.neighborhoodWeights[node1] -= this.weights[node2];
+            this.neighborhoodWeights[node2] -= this.weights[node1];
+            this.update(node1);
+            this.update(node2);
+
+            this.numEdges--;
+
+            return true;
+        }
+
+        /**
+         * Changes the weight of a node, as Graph.updateNodeWeight. O((d+1) log n).
+         *
+         * @param node   - node.
+         * @param weight - new weight.
+         * @return 'true' if the node was updated, otherwise 'false'.
+         */
+        boolean updateNodeWeight(int node, int weight) {
+            if (!this.alive[node]) {
+                return false;
+            }
+
+            long delta = (long) weight - this.weights[node];
+
+            this.weights[node] = weight;
+            this.neighborhoodWeights[node] += delta;
+            this.update(node);
+
+            for (int i = 0, neighbor; i < this.degrees[node]; i++) {
+                neighbor = this.neighbors[node][i];
+                this.neighborhoodWeights[neighbor] += delta;
+                this.update(neighbor);
+            }
+
+            return true;
+        }
+
+        /**
+         * Adds a node, with no edges and its weight at the start of the workload, as Graph.addNode. O(log n).
+         *
+         * @param node   - node.
+         * @param weight - weight of node at the start of the workload.
+         * @return 'true' if the node was added, otherwise 'false'.
+         */
+        boolean addNode(int node, int weight) {
+            if (this.alive[node]) {
+                return false;
+            }
+
+            this.alive[node] = true;
+            this.weights[node] = weight;
+            this.neighborhoodWeights[node] = this.weights[node];
+            this.update(node);
+
+            this.numNodes++;
+
+            return true;
+        }
+
+        /**
+         * Deletes a node and its edges, as Graph.deleteNode. O((d+1) log n) - Expected.
+         *
+         * @param node - node.
+         * @return 'true' if the node was deleted, otherwise 'false'.
+         */
+        boolean deleteNode(int node) {
+            if (!this.alive[node]) {
+                return false;
+            }
+
+            int neighbor;
+            long positions;
+
+            for (int i = 0; i < this.degrees[node]; i++) {
+                neighbor = this.neighbors[node][i];
+                positions = this.remove(ReferenceGraph.getKey(node, neighbor));
+
+                // move last edge of neighbor into the position of node
+                this.unlink(neighbor, ReferenceGraph.getPosition(positions, node, neighbor));
+
+                this.neighborhoodWeights[neighbor] -= this.weights[node];
+                this.update(neighbor);
+
+                this.numEdges--;
+            }
+
+            this.degrees[node] = 0;
+            this.alive[node] = false;
+            this.update(node);
+
+            this.numNodes--;
+
+            return true;
+        }
+
+        /**
+         * Returns neighborhood weight of node, or -1 if not in the graph. O(1).
+         *
+         * @param node - node.
+         * @return neighborhood weight, or -1.
+         */
+        long getNeighborhoodWeight(int node) {
+            return this.alive[node] ? this.neighborhoodWeights[node] : -1;
+        }
+
+        /**
+         * Returns the maximum neighborhood weight, or -1 if the graph is empty. O(1).
+         *
+         * @return maximum neighborhood weight, or -1.
+         */
+        long getMaxNeighborhoodWeight() {
+            return this.numNodes == 0 ? -1 : this.tree[1];
+        }
+
+        boolean isAlive(int node) {
+            return this.alive[node];
+        }
+
+        int getWeight(int node) {
+            return this.weights[node];
+        }
+
+        int getDegree(int node) {
+            return this.degrees[node];
+        }
+
+        int getNeighbor(int node, int i) {
+            return this.neighbors[node][i];
+        }
+
+        int getNumNodes() {
+            return this.numNodes;
+        }
+
+        int getNumEdges() {
+            return this.numEdges;
+        }
+    }
+
+    public static void main(String[] args) {
+        String mode = args.length > 0 ? args[0] : "check";
+        String distribution = args.length > 1 ? args[1] : "all";
+        int exponent = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int opsPerNode = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 0;
+
+        for (Workload.Distribution d : Workload.Distribution.values()) {
+            if (!distribution.equals("all") && !distribution.equalsIgnoreCase(d.name())) {
+                continue;
+            }
+
+            Workload workload = new Workload(d, 1 << exponent, opsPerNode << exponent, seed);
+
+            if (mode.equals("check")) {
+                Graph graph = new Graph(workload.createNodes());
+
+                WorkloadRunner.check(workload, graph, "eager repair");
+
+                graph = new Graph(workload.createNodes());
+                graph.setLazyRepair(true);
+
+                WorkloadRunner.check(workload, graph, "lazy repair");
+                WorkloadRunner.check(workload, new OffHeapGraph(workload.createNodes()), "off heap");
+                WorkloadRunner.checkSharded(workload, 4);
+            } else if (mode.equals("stress")) {
+                WorkloadRunner.stress(workload, Math.max(4, Runtime.getRuntime().availableProcessors()));
+            } else {
+                WorkloadRunner.bench(workload);
+            }
+        }
+    }
+
+    /**
+     * Applies workload to a graph and to the reference model, exiting on the first mismatch. Snapshots and the
+     * operation log are only checked for a Graph.
+     *
+     * @param workload - workload.
+     * @param graph    - graph of the nodes of workload, with no edges.
+     * @param name     - name of graph in the report.
+     */
+    public static void check(Workload workload, NeighborhoodGraph graph, String name) {
+        int n = workload.getNumNodes(), node1, node2, expected, actual, length;
+        int[] ids1 = new int[Workload.MAX_BATCH_LENGTH], ids2 = new int[Workload.MAX_BATCH_LENGTH];
+        byte type;
+        long start = System.nanoTime();
+
+        ReferenceGraph reference = new ReferenceGraph(workload);
+        int[] sortedIds = new int[n], nodesBySortedId = WorkloadRunner.sortIds(workload, sortedIds);
+
+        Graph restorable = graph instanceof Graph ? (Graph) graph : null;
+        Path snapshotPath = null, logPath = null;
+        OperationLog log = null;
+
+        if (restorable != null) {
+            try {
+                snapshotPath = Files.createTempFile("workload", ".snapshot");
+                logPath = Files.createTempFile("workload", ".log");
+                restorable.writeSnapshot(snapshotPath);
+                log = new OperationLog(logPath, 4096, Long.MAX_VALUE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            restorable.setOperationLog(log);
+        }
+
+        for (int op = 0; op < workload.getNumOps(); op++) {
+            node1 = workload.getArg1(op);
+            node2 = workload.getArg2(op);
+
+            switch (type = workload.getType(op)) {
+                case Workload.ADD_EDGE:
+                    expected = reference.addEdge(node1, node2) ? 1 : 0;
+                    actual = graph.addEdge(workload.getId(node1), workload.getId(node2)) ? 1 : 0;
+                    WorkloadRunner.expectWeight(workload, op, graph, reference, node1);
+                    WorkloadRunner.expectWeight(workload, op, graph, reference, node2);
+                    break;
+                case Workload.DELETE_EDGE:
+                    expected = reference.deleteEdge(node1, node2) ? 1 : 0;
+                    actual = graph.deleteEdge(workload.getId(node1), workload.getId(node2)) ? 1 : 0;
+                    WorkloadRunner.expectWeight(workload, op, graph, reference, node1);
+                    WorkloadRunner.expectWeight(workload, op, graph, reference, node2);
+                    break;
+                case Workload.ADD_NODE:
+                    expected = reference.addNode(node1, workload.getWeight(node1)) ? 1 : 0;
+                    actual = graph.addNode(new Graph.Node(workload.getId(node1), workload.getWeight(node1))) ? 1 : 0;
+                    WorkloadRunner.expectWeight(workload, op, graph, reference, node1);
+                    break;
+                case Workload.DELETE_NODE:
+                    expected = reference.deleteNode(node1) ? 1 : 0;
+                    actual = graph.deleteNode(workload.getId(node1)) ? 1 : 0;
+                    WorkloadRunner.expectWeight(workload, op, graph, reference, node1);
+                    break;
+                case Workload.UPDATE_NODE_WEIGHT:
+                    expected = reference.updateNodeWeight(node1, node2) ? 1 : 0;
+                    actual = graph.updateNodeWeight(workload.getId(node1), node2) ? 1 : 0;
+                    WorkloadRunner.expectWeight(workload, op, graph, reference, node1);
+                    break;
+                default:
+                    // batch, the graph must return as many as the model applying the elements one by one
+                    length = workload.getBatchLength(op);
+                    expected = 0;
+
+                    for (int i = 0; i < length; i++) {
+                        node1 = workload.getBatchArg1(op, i);
+                        node2 = workload.getBatchArg2(op, i);
+                        ids1[i] = workload.getId(node1);
+
+                        if (type == Workload.ADD_EDGES) {
+                            ids2[i] = workload.getId(node2);
+                            expected += reference.addEdge(node1, node2) ? 1 : 0;
+                        } else if (type == Workload.DELETE_NODES) {
+                            expected += reference.deleteNode(node1) ? 1 : 0;
+                        } else {
+                            ids2[i] = node2;
+                            expected += reference.updateNodeWeight(node1, node2) ? 1 : 0;
+                        }
+                    }
+
+                    if (type == Workload.ADD_EDGES) {
+                        actual = graph.addEdges(ids1, ids2, length);
+                    } else if (type == Workload.DELETE_NODES) {
+                        actual = graph.deleteNodes(ids1, length);
+                    } else {
+                        actual = graph.updateNodeWeights(ids1, ids2, length);
+                    }
+
+                    for (int i = 0; i < length; i++) {
+                        WorkloadRunner.expectWeight(workload, op, graph, reference, workload.getBatchArg1(op, i));
+
+                        if (type == Workload.ADD_EDGES) {
+                            WorkloadRunner.expectWeight(workload, op, graph, reference, workload.getBatchArg2(op, i));
+                        }
+                    }
+                    break;
+            }
+
+            if (actual != expected) {
+                WorkloadRunner.fail(workload, op, "returned " + actual + " expected " + expected);
+            }
+
+            if (graph.getNumNodes() != reference.getNumNodes()) {
+                WorkloadRunner.fail(workload, op,
+                        "numNodes " + graph.getNumNodes() + " expected " + reference.getNumNodes());
+            }
+
+            if (graph.getNumEdges() != reference.getNumEdges()) {
+                WorkloadRunner.fail(workload, op,
+                        "numEdges " + graph.getNumEdges() + " expected " + reference.getNumEdges());
+            }
+
+            // the max node may be any node of maximum neighborhood weight
+            Graph.Node max = graph.maxNeighborhoodWeight();
+            long maxWeight = -1;
+
+            if (max != null) {
+                int i = Arrays.binarySearch(sortedIds, max.getId());
+
+                if (i < 0) {
+                    WorkloadRunner.fail(workload, op, "max node " + max.getId() + " is not in workload");
+                }
+
+                maxWeight = reference.getNeighborhoodWeight(nodesBySortedId[i]);
+            }
+
+            if (maxWeight != reference.getMaxNeighborhoodWeight()) {
+                WorkloadRunner.fail(workload, op,
+                        "max neighborhood weight " + maxWeight + " expected " + reference.getMaxNeighborhoodWeight());
+            }
+
+            if (op % n == n - 1) {
+                WorkloadRunner.expectGraph(workload, op, graph, reference, "graph");
+
+                if (restorable != null) {
+                    WorkloadRunner.expectRestored(workload, op, restorable, reference, log, logPath, snapshotPath);
+                }
+
+                WorkloadRunner.expectGraph(workload, op, WorkloadRunner.build(workload, reference), reference,
+                        "bulk constructed graph");
+            }
+        }
+
+        if (restorable != null) {
+            restorable.setOperationLog(null);
+
+            try {
+                log.close();
+                Files.delete(logPath);
+                Files.delete(snapshotPath);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        System.out.printf("%-10s %9d nodes %10d ops %-13s OK, %d nodes %d edges, %.1f s%n",
+                workload.getDistribution(), n, workload.getNumOps(), name + ":", graph.getNumNodes(),
+                graph.getNumEdges(), (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Applies workload to a sharded graph of given number of shards and to the reference model, syncing before and
+     * after every node addition and deletion, and comparing the synced graph to the model every n operations and at
+     * the end, exiting on the first mismatch. Edge deletions and weight updates, which ShardedGraph does not support,
+     * are skipped by both.
+     *
+     * @param workload  - workload.
+     * @param numShards - number of shards.
+     */
+    public static void checkSharded(Workload workload, int numShards) {
+        int n = workload.getNumNodes(), node1;
+        long start = System.nanoTime();
+
+        ReferenceGraph reference = new ReferenceGraph(workload);
+
+        try (ShardedGraph graph = new ShardedGraph(workload.createNodes(), numShards)) {
+            for (int op = 0; op < workload.getNumOps(); op++) {
+                node1 = workload.getArg1(op);
+
+                switch (workload.getType(op)) {
+                    case Workload.ADD_EDGE:
+                        reference.addEdge(node1, workload.getArg2(op));
+                        break;
+                    case Workload.ADD_EDGES:
+                        for (int i = 0; i < workload.getBatchLength(op); i++) {
+                            reference.addEdge(workload.getBatchArg1(op, i), workload.getBatchArg2(op, i));
+                        }
+                        break;
+                    case Workload.ADD_NODE:
+                        reference.addNode(node1, workload.getWeight(node1));
+                        graph.sync();
+                        break;
+                    case Workload.DELETE_NODE:
+                        reference.deleteNode(node1);
+                        graph.sync();
+                        break;
+                    case Workload.DELETE_NODES:
+                        for (int i = 0; i < workload.getBatchLength(op); i++) {
+                            reference.deleteNode(workload.getBatchArg1(op, i));
+                        }
+
+                        graph.sync();
+                        break;
+                    default:
+                        continue;
+                }
+
+                WorkloadRunner.apply(workload, graph, op);
+
+                if (workload.getType(op) == Workload.ADD_NODE || workload.getType(op) == Workload.DELETE_NODE) {
+                    graph.sync();
+
+                    if (graph.containsNode(workload.getId(node1)) != reference.isAlive(node1) ||
+                            graph.getNeighborhoodWeightLong(workload.getId(node1)) !=
+                                    reference.getNeighborhoodWeight(node1)) {
+                        WorkloadRunner.fail(workload, op, "node " + workload.getId(node1) +
+                                " has neighborhood weight " + graph.getNeighborhoodWeightLong(workload.getId(node1)) +
+                                " expected " + reference.getNeighborhoodWeight(node1));
+                    }
+                } else if (workload.getType(op) == Workload.DELETE_NODES) {
+                    graph.sync();
+                }
+
+                if (op % n == n - 1) {
+                    WorkloadRunner.expectSharded(workload, op, graph, reference);
+                }
+            }
+
+            WorkloadRunner.expectSharded(workload, workload.getNumOps() - 1, graph, reference);
+
+            System.out.printf("%-10s %9d nodes %10d ops %-13s OK, %d nodes %d edges, %.1f s%n",
+                    workload.getDistribution(), n, workload.getNumOps(), "sharded:", graph.getNumNodes(),
+                    graph.getNumEdges(), (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    /**
+     * Syncs sharded graph and compares its number of nodes and edges, all neighborhood weights and the max
+     * neighborhood weight to the reference model, exiting on the first mismatch. O(n * shards).
+     *
+     * @param workload  - workload.
+     * @param op        - last operation applied.
+     * @param graph     - sharded graph.
+     * @param reference - reference model.
+     */
+    private static void expectSharded(Workload workload, int op, ShardedGraph graph, ReferenceGraph reference) {
+        long actual, expected;
+
+        graph.sync();
+
+        if (graph.getNumNodes() != reference.getNumNodes() || graph.getNumEdges() != reference.getNumEdges()) {
+            WorkloadRunner.fail(workload, op, "sharded graph has " + graph.getNumNodes() + " nodes " +
+                    graph.getNumEdges() + " edges expected " + reference.getNumNodes() + " nodes " +
+                    reference.getNumEdges() + " edges");
+        }
+
+        for (int node = 0; node < workload.getNumNodes(); node++) {
+            actual = graph.getNeighborhoodWeightLong(workload.getId(node));
+            expected = reference.getNeighborhoodWeight(node);
+
+            if (actual != expected) {
+                WorkloadRunner.fail(workload, op, "neighborhood weight of " + workload.getId(node) +
+                        " in sharded graph is " + actual + " expected " + expected);
+            }
+        }
+
+        Graph.MaxNeighborhood max = graph.getMaxNeighborhood();
+
+        if ((actual = max == null ? -1 : max.getWeight()) != reference.getMaxNeighborhoodWeight()) {
+            WorkloadRunner.fail(workload, op, "max neighborhood weight of sharded graph is " + actual +
+                    " expected " + reference.getMaxNeighborhoodWeight());
+        }
+    }
+
+    /**
+     * Applies workload to a concurrent graph from given number of threads, thread t applying the operations k with
+     * k mod numThreads = t in order, while another thread reads the max neighborhood, and checks the graph left,
+     * exiting on the first mismatch.
+     *
+     * @param workload   - workload.
+     * @param numThreads - number of threads applying operations.
+     */
+    public static void stress(Workload workload, int numThreads) {
+        int n = workload.getNumNodes();
+        long start = System.nanoTime();
+        ConcurrentGraph graph = new ConcurrentGraph(workload.createNodes());
+        Thread[] threads = new Thread[numThreads];
+        long[] nodesAdded = new long[numThreads];
+        Throwable[] failures = new Throwable[numThreads + 1];
+        AtomicBoolean done = new AtomicBoolean();
+
+        for (int t = 0; t < numThreads; t++) {
+            int first = t;
+
+            threads[t] = new Thread(() -> {
+                try {
+                    for (int op = first; op < workload.getNumOps(); op += numThreads) {
+                        nodesAdded[first] += WorkloadRunner.apply(workload, graph, op);
+                    }
+                } catch (Throwable failure) {
+                    failures[first] = failure;
+                }
+            });
+        }
+
+        Thread reader = new Thread(() -> {
+            Graph.MaxNeighborhood max;
+
+            try {
+                while (!done.get()) {
+                    // weights are not negative, so a neighborhood weighs at least its node
+                    if ((max = graph.getMaxNeighborhood()) != null && max.getWeight() < max.getNode().getWeight()) {
+                        throw new IllegalStateException("max neighborhood weight " + max.getWeight() +
+                                " below weight of node " + max.getNode().getId());
+                    }
+                }
+            } catch (Throwable failure) {
+                failures[numThreads] = failure;
+            }
+        });
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+
+        reader.start();
+
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            done.set(true);
+
+            reader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            return;
+        }
+
+        for (Throwable failure : failures) {
+            if (failure != null) {
+                WorkloadRunner.fail(workload, 0, "stress thread threw " + failure);
+            }
+        }
+
+        long expectedNodes = n, degrees = 0, maxWeight = -1, neighborhoodWeight;
+        long[] sum = new long[1];
+        int[] weights = new int[n], nodesBySortedId, sortedIds = new int[n];
+
+        nodesBySortedId = WorkloadRunner.sortIds(workload, sortedIds);
+
+        for (int node = 0; node < n; node++) {
+            weights[node] = workload.getWeight(node);
+        }
+
+        for (long added : nodesAdded) {
+            expectedNodes += added;
+        }
+
+        if (graph.getNumNodes() != expectedNodes) {
+            WorkloadRunner.fail(workload, 0, "numNodes " + graph.getNumNodes() + " expected " + expectedNodes);
+        }
+
+        for (int node = 0; node < n; node++) {
+            sum[0] = weights[node];
+
+            int degree = graph.forEachNeighbor(workload.getId(node), id ->
+                    sum[0] += weights[nodesBySortedId[Arrays.binarySearch(sortedIds, id)]]);
+
+            neighborhoodWeight = degree == -1 ? -1 : sum[0];
+            degrees += Math.max(0, degree);
+            maxWeight = Math.max(maxWeight, neighborhoodWeight);
+
+            if (graph.getNeighborhoodWeightLong(workload.getId(node)) != neighborhoodWeight) {
+                WorkloadRunner.fail(workload, 0, "neighborhood weight of " + workload.getId(node) + " is " +
+                        graph.getNeighborhoodWeightLong(workload.getId(node)) + " expected " + neighborhoodWeight);
+            }
+        }
+
+        if (graph.getNumEdges() != degrees / 2) {
+            WorkloadRunner.fail(workload, 0, "numEdges " + graph.getNumEdges() + " expected " + degrees / 2);
+        }
+
+        Graph.MaxNeighborhood max = graph.getMaxNeighborhood();
+
+        if ((max == null ? -1 : max.getWeight()) != maxWeight) {
+            WorkloadRunner.fail(workload, 0, "max neighborhood weight " + (max == null ? -1 : max.getWeight()) +
+                    " expected " + maxWeight);
+        }
+
+        System.out.printf("%-10s %9d nodes %10d ops %d threads: OK, %d nodes %d edges, %.1f s%n",
+                workload.getDistribution(), n, workload.getNumOps(), numThreads, graph.getNumNodes(),
+                graph.getNumEdges(), (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Fills sortedIds with the ids of the nodes of workload in increasing order, and returns the node of every sorted
+     * id. O(n log n).
+     *
+     * @param workload  - workload.
+     * @param sortedIds - array of n ids to fill.
+     * @return node of every sorted id.
+     */
+    private static int[] sortIds(Workload workload, int[] sortedIds) {
+        int n = workload.getNumNodes();
+        long[] pairs = new long[n];
+        int[] nodes = new int[n];
+
+        for (int i = 0; i < n; i++) {
+            pairs[i] = ((long) workload.getId(i) << 32) | i;
+        }
+
+        Arrays.sort(pairs);
+
+        for (int i = 0; i < n; i++) {
+            sortedIds[i] = (int) (pairs[i] >> 32);
+            nodes[i] = (int) pairs[i];
+        }
+
+        return nodes;
+    }
+
+    private static void expectWeight(Workload workload, int op, NeighborhoodGraph graph, ReferenceGraph reference,
+                                     int node) {
+        long actual = graph.getNeighborhoodWeightLong(workload.getId(node));
+        long expected = reference.getNeighborhoodWeight(node);
+
+        if (actual != expected) {
+            WorkloadRunner.fail(workload, op,
+                    "neighborhood weight of " + workload.getId(node) + " is " + actual + " expected " + expected);
+        }
+    }
+
+    /**
+     * Compares the number of nodes and edges, all neighborhood weights and the max neighborhood weight of a graph to
+     * the reference model, exiting on the first mismatch. O(n).
+     *
+     * @param workload  - workload.
+     * @param op        - last operation applied.
+     * @param graph     - graph.
+     * @param reference - reference model.
+     * @param name      - name of graph in messages.
+     */
+    private static void expectGraph(Workload workload, int op, NeighborhoodGraph graph, ReferenceGraph reference,
+                                    String name) {
+        long actual, expected;
+
+        if (graph.getNumNodes() != reference.getNumNodes() || graph.getNumEdges() != reference.getNumEdges()) {
+            WorkloadRunner.fail(workload, op, name + " has " + graph.getNumNodes() + " nodes " +
+                    graph.getNumEdges() + " edges expected " + reference.getNumNodes() + " nodes " +
+                    reference.getNumEdges() + " edges");
+        }
+
+        for (int node = 0; node < workload.getNumNodes(); node++) {
+            actual = graph.getNeighborhoodWeightLong(workload.getId(node));
+            expected = reference.getNeighborhoodWeight(node);
+
+            if (actual != expected) {
+                WorkloadRunner.fail(workload, op, "neighborhood weight of " + workload.getId(node) + " in " + name +
+                        " is " + actual + " expected " + expected);
+            }
+        }
+
+        Graph.Node max = graph.maxNeighborhoodWeight();
+
+        if ((actual = max == null ? -1 : graph.getNeighborhoodWeightLong(max.getId())) !=
+                reference.getMaxNeighborhoodWeight()) {
+            WorkloadRunner.fail(workload, op, "max neighborhood weight of " + name + " is " + actual + " expected " +
+                    reference.getMaxNeighborhoodWeight());
+        }
+    }
+
+    /**
+     * Commits log, replays it onto the graph read from the last snapshot and compares the result to the reference
+     * model, then writes a new snapshot of graph, truncates log, and compares the graph read from the snapshot to
+     * the reference model, exiting on the first mismatch.
+     *
+     * @param workload     - workload.
+     * @param op           - last operation applied.
+     * @param graph        - graph.
+     * @param reference    - reference model.
+     * @param log          - operation log of the graph, attached since the last snapshot.
+     * @param logPath      - path of log.
+     * @param snapshotPath - path of last snapshot.
+     */
+    private static void expectRestored(Workload workload, int op, Graph graph, ReferenceGraph reference,
+                                       OperationLog log, Path logPath, Path snapshotPath) {
+        Graph replayed, read;
+
+        try {
+            log.commit();
+            replayed = Graph.readSnapshot(snapshotPath);
+            OperationLog.replay(replayed, logPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        WorkloadRunner.expectGraph(workload, op, replayed, reference, "replayed log");
+
+        try {
+            graph.writeSnapshot(snapshotPath);
+            log.truncate();
+            read = Graph.readSnapshot(snapshotPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        WorkloadRunner.expectGraph(workload, op, read, reference, "read snapshot");
+    }
+
+    /**
+     * Returns a graph of the nodes and edges of the reference model, built by the bulk constructor. O(n + m).
+     *
+     * @param workload  - workload.
+     * @param reference - reference model.
+     * @return graph.
+     */
+    private static Graph build(Workload workload, ReferenceGraph reference) {
+        Graph.Node[] nodes = new Graph.Node[reference.getNumNodes()];
+        int[] ids1 = new int[reference.getNumEdges()], ids2 = new int[reference.getNumEdges()];
+        int numNodes = 0, numEdges = 0, neighbor;
+
+        for (int node = 0; node < workload.getNumNodes(); node++) {
+            if (!reference.isAlive(node)) {
+                continue;
+            }
+
+            nodes[numNodes++] = new Graph.Node(workload.getId(node), reference.getWeight(node));
+
+            for (int i = 0; i < reference.getDegree(node); i++) {
+                if (node < (neighbor = reference.getNeighbor(node, i))) {
+                    ids1[numEdges] = workload.getId(node);
+                    ids2[numEdges++] = workload.getId(neighbor);
+                }
+            }
+        }
+
+        return new Graph(nodes, ids1, ids2);
+    }
+
+    private static void fail(Workload workload, int op, String message) {
+        System.out.printf("MISMATCH %s seed %d op %d (type %d): %s%n",
+                workload.getDistribution(), workload.getSeed(), op, workload.getType(op), message);
+        System.exit(1);
+    }
+
+    /**
+     * Applies workload to a graph and prints the throughput of every type of operation, then applies it to a new
+     * graph with metrics attached and prints them.
+     *
+     * @param workload - workload.
+     */
+    public static void bench(Workload workload) {
+        long[] nanos = new long[Workload.NUM_TYPES], counts = new long[Workload.NUM_TYPES];
+        int[] ids1 = new int[Workload.MAX_BATCH_LENGTH], ids2 = new int[Workload.MAX_BATCH_LENGTH];
+        long sink = 0, time;
+        byte type;
+
+        Graph graph = new Graph(workload.createNodes());
+
+        for (int op = 0; op < workload.getNumOps(); op++) {
+            type = workload.getType(op);
+            time = System.nanoTime();
+            WorkloadRunner.apply(workload, graph, op, ids1, ids2);
+            sink += graph.maxNeighborhoodWeight() == null ? 0 : 1;
+            nanos[type] += System.nanoTime() - time;
+            counts[type]++;
+        }
+
+        System.out.printf("%-10s %9d nodes:", workload.getDistribution(), workload.getNumNodes());
+
+        for (type = Workload.ADD_EDGE; type < Workload.NUM_TYPES; type++) {
+            if (counts[type] > 0) {
+                System.out.printf(" %s %.0f ops/s,", TYPE_NAMES[type], counts[type] / (nanos[type] / 1e9));
+            }
+        }
+
+        System.out.printf(" (each with maxNeighborhoodWeight), %d edges%n", graph.getNumEdges());
+
+        // keep the results of the queries alive
+        WorkloadRunner.blackhole = sink;
+
+        GraphMetrics metrics = new GraphMetrics();
+
+        graph = new Graph(workload.createNodes());
+        graph.setMetrics(metrics);
+
+        for (int op = 0; op < workload.getNumOps(); op++) {
+            WorkloadRunner.apply(workload, graph, op, ids1, ids2);
+        }
+
+        System.out.printf("%-10s %9d nodes: addEdge p50/p99/p99.9 %d/%d/%d ns, deleteNode p50/p99/p99.9 %d/%d/%d ns, " +
+                        "probe length mean %.2f max %d, %d rehashes, sift distance mean %.2f max %d%n",
+                workload.getDistribution(), workload.getNumNodes(),
+                metrics.getAddEdgeLatencyP50(), metrics.getAddEdgeLatencyP99(), metrics.getAddEdgeLatencyP999(),
+                metrics.getDeleteNodeLatencyP50(), metrics.getDeleteNodeLatencyP99(),
+                metrics.getDeleteNodeLatencyP999(), metrics.getMeanProbeLength(), metrics.getMaxProbeLength(),
+                metrics.getRehashCount(), metrics.getMeanSiftDistance(), metrics.getMaxSiftDistance());
+
+        int numShards = Runtime.getRuntime().availableProcessors();
+
+        try (ShardedGraph sharded = new ShardedGraph(workload.createNodes(), numShards)) {
+            time = System.nanoTime();
+
+            for (int op = 0; op < workload.getNumOps(); op++) {
+                WorkloadRunner.apply(workload, sharded, op);
+            }
+
+            sharded.sync();
+            time = System.nanoTime() - time;
+
+            System.out.printf("%-10s %9d nodes: %d shards %.0f ops/s, %d edges%n",
+                    workload.getDistribution(), workload.getNumNodes(), numShards,
+                    workload.getNumOps() / (time / 1e9), sharded.getNumEdges());
+        }
+
+        // ConcurrentGraph by number of threads, powers of two up to the number of cores and at least 4, after a run
+        // that warms up the code, so that the single threaded run is not the one compiling it
+        double opsPerSecond, singleThreaded = 0;
+
+        WorkloadRunner.blackhole = (long) WorkloadRunner.measure(workload, 1);
+
+        System.out.printf("%-10s %9d nodes: concurrent", workload.getDistribution(), workload.getNumNodes());
+
+        for (int numThreads = 1; numThreads <= Math.max(4, numShards); numThreads *= 2) {
+            opsPerSecond = WorkloadRunner.measure(workload, numThreads);
+            singleThreaded = numThreads == 1 ? opsPerSecond : singleThreaded;
+
+            System.out.printf(" %d threads %.0f ops/s (%.2fx),", numThreads, opsPerSecond,
+                    opsPerSecond / singleThreaded);
+        }
+
+        System.out.printf(" on %d cores%n", numShards);
+    }
+
+    /**
+     * Applies workload to a new concurrent graph from given number of threads, thread t applying the operations k
+     * with k mod numThreads = t in order, and returns the throughput of all threads.
+     *
+     * @param workload   - workload.
+     * @param numThreads - number of threads applying operations.
+     * @return operations per second.
+     */
+    private static double measure(Workload workload, int numThreads) {
+        ConcurrentGraph graph = new ConcurrentGraph(workload.createNodes());
+        Thread[] threads = new Thread[numThreads];
+
+        for (int t = 0; t < numThreads; t++) {
+            int first = t;
+
+            threads[t] = new Thread(() -> {
+                for (int op = first; op < workload.getNumOps(); op += numThreads) {
+                    WorkloadRunner.apply(workload, graph, op);
+                }
+            });
+        }
+
+        long time = System.nanoTime();
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        return workload.getNumOps() / ((System.nanoTime() - time) / 1e9);
+    }
+
+    /**
+     * Applies an operation of workload to graph, batch operations through the batch operations of the graph.
+     *
+     * @param workload - workload.
+     * @param graph    - graph.
+     * @param op       - operation.
+     * @param ids1     - array of MAX_BATCH_LENGTH ids to fill for batch operations.
+     * @param ids2     - array of MAX_BATCH_LENGTH ids or weights to fill for batch operations.
+     */
+    private static void apply(Workload workload, Graph graph, int op, int[] ids1, int[] ids2) {
+        int node1 = workload.getArg1(op), length;
+        byte type = workload.getType(op);
+
+        switch (type) {
+            case Workload.ADD_EDGE:
+                graph.addEdge(workload.getId(node1), workload.getId(workload.getArg2(op)));
+                break;
+            case Workload.DELETE_EDGE:
+                graph.deleteEdge(workload.getId(node1), workload.getId(workload.getArg2(op)));
+                break;
+            case Workload.ADD_NODE:
+                graph.addNode(new Graph.Node(workload.getId(node1), workload.getWeight(node1)));
+                break;
+            case Workload.DELETE_NODE:
+                graph.deleteNode(workload.getId(node1));
+                break;
+            case Workload.UPDATE_NODE_WEIGHT:
+                graph.updateNodeWeight(workload.getId(node1), workload.getArg2(op));
+                break;
+            default:
+                length = workload.getBatchLength(op);
+
+                for (int i = 0; i < length; i++) {
+                    ids1[i] = workload.getId(workload.getBatchArg1(op, i));
+                    ids2[i] = type == Workload.ADD_EDGES ?
+                            workload.getId(workload.getBatchArg2(op, i)) :
+                            workload.getBatchArg2(op, i);
+                }
+
+                if (type == Workload.ADD_EDGES) {
+                    graph.addEdges(ids1, ids2, length);
+                } else if (type == Workload.DELETE_NODES) {
+                    graph.deleteNodes(ids1, length);
+                } else {
+                    graph.updateNodeWeights(ids1, ids2, length);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Applies an operation of workload to concurrent graph and returns the change in the number of nodes. Batch
+     * operations are applied element by element, and weight updates, whose final weights would depend on the
+     * interleaving of threads, are skipped.
+     *
+     * @param workload - workload.
+     * @param graph    - concurrent graph.
+     * @param op       - operation.
+     * @return change in number of nodes.
+     */
+    private static int apply(Workload workload, ConcurrentGraph graph, int op) {
+        int node1 = workload.getArg1(op), added = 0;
+
+        switch (workload.getType(op)) {
+            case Workload.ADD_EDGE:
+                graph.addEdge(workload.getId(node1), workload.getId(workload.getArg2(op)));
+                break;
+            case Workload.DELETE_EDGE:
+                graph.deleteEdge(workload.getId(node1), workload.getId(workload.getArg2(op)));
+                break;
+            case Workload.ADD_NODE:
+                if (graph.addNode(new Graph.Node(workload.getId(node1), workload.getWeight(node1)))) {
+                    added++;
+                }
+                break;
+            case Workload.DELETE_NODE:
+                if (graph.deleteNode(workload.getId(node1))) {
+                    added--;
+                }
+                break;
+            case Workload.ADD_EDGES:
+                for (int i = 0; i < workload.getBatchLength(op); i++) {
+                    graph.addEdge(workload.getId(workload.getBatchArg1(op, i)),
+                            workload.getId(workload.getBatchArg2(op, i)));
+                }
+                break;
+            case Workload.DELETE_NODES:
+                for (int i = 0; i < workload.getBatchLength(op); i++) {
+                    if (graph.deleteNode(workload.getId(workload.getBatchArg1(op, i)))) {
+                        added--;
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+
+        return added;
+    }
+
+    /**
+     * Applies an operation of workload to sharded graph, without waiting for it to be applied. Batch operations are
+     * applied element by element, and edge deletions and weight updates, which ShardedGraph does not support, are
+     * skipped.
+     *
+     * @param workload - workload.
+     * @param graph    - sharded graph.
+     * @param op       - operation.
+     */
+    private static void apply(Workload workload, ShardedGraph graph, int op) {
+        int node1 = workload.getArg1(op);
+
+        switch (workload.getType(op)) {
+            case Workload.ADD_EDGE:
+                graph.addEdge(workload.getId(node1), workload.getId(workload.getArg2(op)));
+                break;
+            case Workload.ADD_NODE:
+                graph.addNode(new Graph.Node(workload.getId(node1), workload.getWeight(node1)));
+                break;
+            case Workload.DELETE_NODE:
+                graph.deleteNode(workload.getId(node1));
+                break;
+            case Workload.ADD_EDGES:
+                for (int i = 0; i < workload.getBatchLength(op); i++) {
+                    graph.addEdge(workload.getId(workload.getBatchArg1(op, i)),
+                            workload.getId(workload.getBatchArg2(op, i)));
+                }
+                break;
+            case Workload.DELETE_NODES:
+                for (int i = 0; i < workload.getBatchLength(op); i++) {
+                    graph.deleteNode(workload.getId(workload.getBatchArg1(op, i)));
+                }
+                break;
+            default:
+                break;
+        }
+    }
+}